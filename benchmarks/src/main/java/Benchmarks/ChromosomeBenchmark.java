@@ -0,0 +1,56 @@
+package Benchmarks;
+
+import Models.Chromosome;
+import org.apache.commons.lang.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ways of copying a scheduled chromosome: the copy-on-write copy the GA uses, a copy with every depot
+ * unshared, and the serialization round trip the GA used before copy-on-write, kept as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChromosomeBenchmark {
+
+    private Chromosome chromosome;
+
+    @Setup
+    public void setup(ProblemState state) {
+        this.chromosome = new Chromosome(state.problem, new Random(0));
+        this.chromosome.scheduleRoutes(state.problem);
+    }
+
+    @Benchmark
+    public Chromosome copyOnWrite() {
+        return new Chromosome(this.chromosome);
+    }
+
+    @Benchmark
+    public Chromosome deepCopy() {
+        Chromosome copy = new Chromosome(this.chromosome);
+        copy.unshare();
+
+        return copy;
+    }
+
+    @Benchmark
+    public Object serializationClone() {
+        return SerializationUtils.clone(this.chromosome);
+    }
+}
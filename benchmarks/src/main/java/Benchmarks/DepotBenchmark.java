@@ -0,0 +1,114 @@
+package Benchmarks;
+
+import Models.Chromosome;
+import Models.Depot;
+import Models.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Depot level operations on a scheduled chromosome, cycling through the depots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepotBenchmark {
+
+    // Customers taken out of a depot and put back by bestCostInsertions, as after a crossover
+    private static final int REMOVED = 5;
+
+    private ProblemState state;
+    private Chromosome scheduled;
+    private Chromosome working;
+    private int[][] removed;
+    private Random random;
+    private int nextDepot;
+
+    @Setup
+    public void setup(ProblemState state) {
+        this.state = state;
+        this.random = new Random(0);
+
+        this.scheduled = new Chromosome(state.problem, new Random(0));
+        this.scheduled.scheduleRoutes(state.problem);
+
+        this.working = new Chromosome(state.problem, new Random(0));
+        this.working.scheduleRoutes(state.problem);
+
+        int numDepots = state.problem.getNumDepots();
+        this.removed = new int[numDepots][];
+
+        for (int d = 0; d < numDepots; d++) {
+            ArrayList<Integer> customers = new ArrayList<>();
+
+            for (Vehicle vehicle : this.scheduled.getDepots().get(d).getVehicles()) {
+                for (int customer : vehicle.getCustomers()) {
+                    customers.add(customer);
+                }
+            }
+
+            Collections.shuffle(customers, this.random);
+
+            this.removed[d] = customers.stream().limit(REMOVED).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Copies the chromosome (copy-on-write), takes REMOVED customers out of one depot and reinserts them at
+     * their best positions. The copy keeps the scheduled chromosome unchanged between invocations.
+     */
+    @Benchmark
+    public Chromosome bestCostInsertions() {
+        int d = nextDepot();
+
+        Chromosome chromosome = new Chromosome(this.scheduled);
+        chromosome.removeCustomers(this.removed[d]);
+        chromosome.getDepot(d).bestCostInsertions(this.removed[d], this.state.problem, this.random);
+
+        return chromosome;
+    }
+
+    /**
+     * Rebuilds all routes of one depot from its customer list; scheduling clears the routes first.
+     */
+    @Benchmark
+    public Depot scheduleRoutes() {
+        Depot depot = this.working.getDepot(nextDepot());
+        depot.scheduleRoutes(this.state.problem);
+
+        return depot;
+    }
+
+    /**
+     * Re-cuts the routes of one depot from their giant tour by Split, as done after crossover. Split keeps the
+     * order of the tour, so repeated invocations work on the same customer sequence.
+     */
+    @Benchmark
+    public boolean splitRoutes() {
+        Depot depot = this.working.getDepot(nextDepot());
+
+        return depot.splitRoutes(depot.getTour(), this.state.problem);
+    }
+
+    private int nextDepot() {
+        this.nextDepot = this.nextDepot + 1 == this.removed.length ? 0 : this.nextDepot + 1;
+
+        return this.nextDepot;
+    }
+}
@@ -0,0 +1,144 @@
+package Benchmarks;
+
+import Models.DistanceStore;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Builds each distance store over random coordinates and reports build time, the heap it retains, its own
+ * size estimate, and lookup throughput for random pairs and for row scans like the insertion loops do.
+ * Stores that would not fit in half the maximum heap are skipped.
+ *
+ * Usage: DistanceStoreBenchmark [nodes,nodes,...] [lookups]
+ */
+public class DistanceStoreBenchmark {
+
+    private static final String[] TYPES = {"matrix", "triangular", "triangular-float", "mapped", "computed"};
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000,5000,10000";
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+
+        System.out.println("Nodes   Store             Build ms   Heap MB   Size MB   Random ns/op   Row scan ns/op");
+
+        for (String size : sizes.split(",")) {
+            int numNodes = Integer.parseInt(size.trim());
+
+            Random random = new Random(0);
+            double[] x = new double[numNodes];
+            double[] y = new double[numNodes];
+
+            for (int i = 0; i < numNodes; i++) {
+                x[i] = random.nextDouble() * 200 - 100;
+                y[i] = random.nextDouble() * 200 - 100;
+            }
+
+            for (String type : TYPES) {
+                if (heapEstimate(type, numNodes) > Runtime.getRuntime().maxMemory() / 2) {
+                    System.out.printf("%-7d %-17s skipped, needs more heap%n", numNodes, type);
+                    continue;
+                }
+
+                long heapBefore = usedHeap();
+                long start = System.nanoTime();
+
+                DistanceStore store = DistanceStore.create(x, y, type);
+
+                double buildMs = (System.nanoTime() - start) / 1e6;
+                long heapAfter = usedHeap();
+
+                randomLookups(store, lookups / 10);
+                rowLookups(store, lookups / 10);
+
+                double randomNs = randomLookups(store, lookups);
+                double rowNs = rowLookups(store, lookups);
+
+                System.out.printf("%-7d %-17s %8.0f %9.1f %9.1f %14.2f %16.2f%n", numNodes, type, buildMs,
+                        (heapAfter - heapBefore) / 1e6, store.sizeInBytes() / 1e6, randomNs, rowNs);
+            }
+        }
+
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            System.out.printf("Buffer pool %s: %d buffers, %.1f MB%n", pool.getName(), pool.getCount(), pool.getMemoryUsed() / 1e6);
+        }
+    }
+
+    private static long heapEstimate(String type, int numNodes) {
+        long pairs = (long) numNodes * numNodes;
+
+        switch (type) {
+            case "matrix":
+                return pairs * Double.BYTES;
+            case "triangular":
+                return pairs / 2 * Double.BYTES;
+            case "triangular-float":
+                return pairs / 2 * Float.BYTES;
+            default:
+                return 0;
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double randomLookups(DistanceStore store, int lookups) {
+        int numNodes = store.getNumNodes();
+        int[] nodes = new int[1 << 16];
+        Random random = new Random(1);
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = random.nextInt(numNodes);
+        }
+
+        double sink = 0;
+        int mask = nodes.length - 1;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < lookups; i++) {
+            sink += store.get(nodes[i & mask], nodes[(i * 31 + 7) & mask]);
+        }
+
+        return result(start, lookups, sink);
+    }
+
+    // Many lookups from the same node against consecutive routes, as Vehicle.bestInsertion does
+    private static double rowLookups(DistanceStore store, int lookups) {
+        int numNodes = store.getNumNodes();
+        int rowLength = Math.min(numNodes, 200);
+        Random random = new Random(2);
+
+        double sink = 0;
+        int done = 0;
+        long start = System.nanoTime();
+
+        while (done < lookups) {
+            int from = random.nextInt(numNodes);
+            int offset = random.nextInt(numNodes - rowLength + 1);
+
+            for (int j = 0; j < rowLength; j++) {
+                sink += store.get(from, offset + j);
+            }
+            done += rowLength;
+        }
+
+        return result(start, done, sink);
+    }
+
+    private static double result(long start, int lookups, double sink) {
+        double elapsed = System.nanoTime() - start;
+
+        if (sink == 42) {
+            System.out.println();
+        }
+
+        return elapsed / lookups;
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import GeneticAlgorithm.GeneticAlgorithm;
+import Models.MDVRP;
+import Utilities.SolverConfig;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solution cost against time, with and without educating offspring by local search. Every invocation is a
+ * single threaded GA run of a fixed wall time budget with a new seed; the score is just the budget, and the
+ * results are the auxiliary counters: the fitness of the best individual at the end of the run and the
+ * number of generations it took. Runs with education rate 0 are the plain GA.
+ *
+ * A cost-vs-time curve is one run per budget, e.g. from the repository root:
+ * java -jar benchmarks/target/benchmarks.jar -p instance=p08 -p seconds=1,5,20 EducationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EducationBenchmark {
+
+    @Param({"0", "0.1", "1"})
+    public double educationRate;
+
+    @Param({"5"})
+    public double educationTime;
+
+    @Param({"5"})
+    public double seconds;
+
+    private MDVRP problem;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setup(ProblemState state) {
+        SolverConfig config = SolverConfig.defaults().toBuilder()
+                .threads(1)
+                .educationRate(this.educationRate)
+                .educationTime(this.educationTime)
+                .build();
+
+        this.problem = state.problem.withConfig(config);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+
+        public double bestFitness;
+        public double generations;
+
+        @Setup(Level.Invocation)
+        public void clear() {
+            this.bestFitness = 0;
+            this.generations = 0;
+        }
+    }
+
+    @Benchmark
+    public GeneticAlgorithm run(Outcome outcome) {
+        GeneticAlgorithm ga = new GeneticAlgorithm(this.problem, this.seed++, 1);
+        long deadline = System.nanoTime() + (long) (this.seconds * 1e9);
+        int generation = 0;
+
+        ga.initialize();
+
+        while (System.nanoTime() < deadline) {
+            ga.nextGeneration(generation++);
+        }
+
+        outcome.bestFitness = ga.getEmigrants(1).get(0).getFitness(this.problem);
+        outcome.generations = generation;
+        ga.shutdown();
+
+        return ga;
+    }
+}
@@ -0,0 +1,106 @@
+package Benchmarks;
+
+import GeneticAlgorithm.GeneticAlgorithm;
+import Models.Chromosome;
+import Utilities.SolverConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GA operators on an initialised population: one crossover of two parents, and a full generation
+ * (elitism, selection, crossover, mutation and evaluation), generational or steady-state. The population
+ * keeps evolving across generation invocations, as it does in a real run.
+ *
+ * With the GC profiler, gc.alloc.rate.norm of generation is the allocation per generation; run the same
+ * benchmark on an older build to compare, e.g. from the repository root:
+ * java -jar benchmarks/target/benchmarks.jar -p instance=p01,p08 GeneticAlgorithmBenchmark.generation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneticAlgorithmBenchmark {
+
+    @Param({"1"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean steadyState;
+
+    private GeneticAlgorithm ga;
+    private Chromosome parent1;
+    private Chromosome parent2;
+    private Chromosome offspring1;
+    private Chromosome offspring2;
+    private Random random;
+    private int generation;
+
+    @Setup
+    public void setup(ProblemState state) {
+        SolverConfig config = state.problem.getConfig().toBuilder().steadyState(this.steadyState).build();
+
+        this.ga = new GeneticAlgorithm(state.problem.withConfig(config), 0L, this.threads);
+        this.ga.initialize();
+        this.random = new Random(0);
+
+        List<Chromosome> parents = this.ga.getEmigrants(2);
+        this.parent1 = parents.get(0);
+        this.parent2 = parents.get(1);
+        this.offspring1 = new Chromosome(this.parent1);
+        this.offspring2 = new Chromosome(this.parent2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.ga.shutdown();
+    }
+
+    /**
+     * Copies two parents (copy-on-write) into new chromosomes and crosses them over.
+     */
+    @Benchmark
+    public Chromosome crossover() {
+        Chromosome c1 = new Chromosome(this.parent1);
+        Chromosome c2 = new Chromosome(this.parent2);
+
+        this.ga.crossover(c1, c2, this.random);
+
+        return c1;
+    }
+
+    /**
+     * The same, copying the parents into two recycled chromosomes as the generation loop does.
+     */
+    @Benchmark
+    public Chromosome crossoverRecycled() {
+        this.offspring1.copyFrom(this.parent1);
+        this.offspring2.copyFrom(this.parent2);
+
+        this.ga.crossover(this.offspring1, this.offspring2, this.random);
+
+        return this.offspring1;
+    }
+
+    @Benchmark
+    public GeneticAlgorithm generation() {
+        this.ga.nextGeneration(this.generation++);
+
+        return this.ga;
+    }
+}
@@ -0,0 +1,78 @@
+package Benchmarks;
+
+import Models.MDVRP;
+import Utilities.ProblemInit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a synthetic problem file in the Cordeau format and times ProblemInit on it, reporting the bytes
+ * allocated per load. The time and allocations include building the MDVRP (distance store, spatial indexes
+ * and depot assignment), not only parsing.
+ *
+ * Usage: ParserBenchmark [customers] [depots] [rounds]
+ */
+public class ParserBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int numCustomers = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int numDepots = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Path file = Files.createTempFile("problem", ".txt");
+        file.toFile().deleteOnExit();
+        writeProblem(file, numCustomers, numDepots);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        double best = Double.POSITIVE_INFINITY;
+        long allocated = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+
+            MDVRP problem = ProblemInit.initializeProblem(file);
+
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            if (problem.getNumCustomers() != numCustomers) {
+                throw new IllegalStateException("Parsed " + problem.getNumCustomers() + " customers");
+            }
+        }
+
+        System.out.printf("%d customers, %d depots, %.1f MB file%n", numCustomers, numDepots, Files.size(file) / 1e6);
+        System.out.printf("Best load time: %.1f ms%n", best);
+        System.out.printf("Allocated per load: %.1f MB (%.0f bytes per customer)%n", allocated / 1e6, (double) allocated / numCustomers);
+    }
+
+    private static void writeProblem(Path file, int numCustomers, int numDepots) throws IOException {
+        Random random = new Random(0);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(String.format("%d %d %d%n", 10, numCustomers, numDepots));
+
+            for (int depot = 0; depot < numDepots; depot++) {
+                writer.write(String.format("0 %d%n", 200));
+            }
+
+            for (int customer = 1; customer <= numCustomers; customer++) {
+                writer.write(String.format(Locale.ROOT, "%5d %8.2f %8.2f 0 %3d 1 4 1 2 4 8%n", customer,
+                        random.nextDouble() * 1000, random.nextDouble() * 1000, 1 + random.nextInt(30)));
+            }
+
+            for (int depot = 1; depot <= numDepots; depot++) {
+                writer.write(String.format(Locale.ROOT, "%5d %8.2f %8.2f 0 0 0 0%n", numCustomers + depot,
+                        random.nextDouble() * 1000, random.nextDouble() * 1000));
+            }
+        }
+    }
+}
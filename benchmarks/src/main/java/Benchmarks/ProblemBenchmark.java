@@ -0,0 +1,55 @@
+package Benchmarks;
+
+import Models.MDVRP;
+import Utilities.InstanceCache;
+import Utilities.Parameters;
+import Utilities.ProblemInit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building an MDVRP: parsing the text file and computing everything from scratch, and loading it from a
+ * warm instance cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProblemBenchmark {
+
+    private Path source;
+    private Path cacheFolder;
+
+    @Setup
+    public void setup(ProblemState state) {
+        this.source = Paths.get(Parameters.PROBLEM_FOLDER + state.instance);
+        this.cacheFolder = Paths.get(Parameters.INSTANCE_CACHE_FOLDER);
+
+        // Makes sure the cache file exists before measuring
+        InstanceCache.load(this.source, this.cacheFolder);
+    }
+
+    @Benchmark
+    public MDVRP parse() {
+        return ProblemInit.initializeProblem(this.source);
+    }
+
+    @Benchmark
+    public MDVRP cached() {
+        return InstanceCache.load(this.source, this.cacheFolder);
+    }
+}
@@ -0,0 +1,31 @@
+package Benchmarks;
+
+import Models.MDVRP;
+import Utilities.ProblemInit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One of the bundled problem instances, loaded once per trial. Benchmarks must be run from the repository root
+ * so that Parameters.PROBLEM_FOLDER resolves; pick instances with -p instance=p01,p08.
+ */
+@State(Scope.Benchmark)
+public class ProblemState {
+
+    @Param({
+            "p01", "p02", "p03", "p04", "p05", "p06",
+            "p07", "p08", "p09", "p10", "p11", "p12",
+            "p13", "p14", "p15", "p16", "p17", "p18",
+            "p19", "p20", "p21", "p22", "p23"
+    })
+    public String instance;
+
+    public MDVRP problem;
+
+    @Setup
+    public void setup() {
+        this.problem = ProblemInit.initializeProblem(this.instance);
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import Models.Chromosome;
+import Models.Depot;
+import Models.Vehicle;
+import org.javatuples.Triplet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route level operations on the vehicles of a scheduled chromosome, cycling through every non-empty route
+ * and a fixed random sequence of customers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VehicleBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1024;
+
+    private ProblemState state;
+    private Vehicle[] vehicles;
+    private int[] customers;
+    private int nextVehicle;
+    private int nextCustomer;
+
+    @Setup
+    public void setup(ProblemState state) {
+        this.state = state;
+
+        Chromosome chromosome = new Chromosome(state.problem, new Random(0));
+        chromosome.scheduleRoutes(state.problem);
+
+        ArrayList<Vehicle> routes = new ArrayList<>();
+
+        for (int i = 0; i < chromosome.getDepots().size(); i++) {
+            Depot depot = chromosome.getDepot(i);
+
+            for (Vehicle vehicle : depot.getVehicles()) {
+                if (vehicle.getNumCustomers() > 0) {
+                    routes.add(vehicle);
+                }
+            }
+        }
+
+        this.vehicles = routes.toArray(new Vehicle[0]);
+
+        Random random = new Random(1);
+        this.customers = new int[SEQUENCE_LENGTH];
+
+        for (int i = 0; i < this.customers.length; i++) {
+            this.customers[i] = random.nextInt(state.problem.getNumCustomers());
+        }
+    }
+
+    @Benchmark
+    public Triplet<Integer, Double, Boolean> bestInsertion() {
+        this.nextCustomer = (this.nextCustomer + 1) & (SEQUENCE_LENGTH - 1);
+
+        return nextVehicle().bestInsertion(this.customers[this.nextCustomer], this.state.problem);
+    }
+
+    /**
+     * Recomputes the route cost and prefix sums of one route from scratch.
+     */
+    @Benchmark
+    public double updateRouteCost() {
+        Vehicle vehicle = nextVehicle();
+        vehicle.setUpdated();
+
+        return vehicle.getRouteCost(this.state.problem);
+    }
+
+    private Vehicle nextVehicle() {
+        this.nextVehicle = this.nextVehicle + 1 == this.vehicles.length ? 0 : this.nextVehicle + 1;
+
+        return this.vehicles[this.nextVehicle];
+    }
+}
@@ -0,0 +1,37 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One checkpoint write on the background writer thread, lasting from opening the temporary file to the rename.
+ */
+@Name("mdvrp.Checkpoint")
+@Label("Checkpoint Write")
+@Category({"MDVRP", "I/O"})
+@Description("A solution snapshot written to disk by the checkpoint writer")
+@StackTrace(false)
+public class CheckpointEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Fitness")
+    public double fitness;
+
+    @Label("Feasible")
+    public boolean feasible;
+
+    @Label("Coalesced Snapshots")
+    @Description("Snapshots replaced by this one before they were written")
+    public int coalesced;
+}
@@ -0,0 +1,54 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One generation of a GeneticAlgorithm, from the start of elitism to the end of bestFeasible().
+ */
+@Name("mdvrp.Generation")
+@Label("Generation")
+@Category({"MDVRP", "Genetic Algorithm"})
+@Description("One generation of the genetic algorithm, with the time spent in each phase")
+@StackTrace(false)
+public class GenerationEvent extends Event {
+
+    @Label("Seed")
+    @Description("Seed of the run, tells concurrent runs apart")
+    public long seed;
+
+    @Label("Generation")
+    public int generation;
+
+    @Label("Best Fitness")
+    public double bestFitness;
+
+    @Label("Best Feasible")
+    public boolean bestFeasible;
+
+    @Label("Elitism")
+    @Timespan(Timespan.NANOSECONDS)
+    public long elitism;
+
+    @Label("Selection")
+    @Timespan(Timespan.NANOSECONDS)
+    public long selection;
+
+    @Label("Variation")
+    @Description("Crossover and mutation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long variation;
+
+    @Label("Evaluation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long evaluation;
+
+    @Label("Best Feasible Update")
+    @Timespan(Timespan.NANOSECONDS)
+    public long bestFeasibleUpdate;
+}
@@ -0,0 +1,34 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A GeneticAlgorithm found a better feasible solution.
+ */
+@Name("mdvrp.NewBest")
+@Label("New Best Solution")
+@Category({"MDVRP", "Genetic Algorithm"})
+@Description("A better feasible solution was found")
+@StackTrace(false)
+public class NewBestEvent extends Event {
+
+    @Label("Seed")
+    public long seed;
+
+    @Label("Generation")
+    public int generation;
+
+    @Label("Previous Fitness")
+    public double previousFitness;
+
+    @Label("Fitness")
+    public double fitness;
+
+    @Label("Feasible")
+    public boolean feasible;
+}
@@ -0,0 +1,67 @@
+package Events;
+
+import Utilities.Parameters;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A sample of crossover and mutation invocations: one in Parameters.JFR_OPERATOR_SAMPLE is recorded, lasting
+ * for the operator itself, without the evaluation of the fitness after it.
+ */
+@Name("mdvrp.Operator")
+@Label("Operator")
+@Category({"MDVRP", "Genetic Algorithm"})
+@Description("A sampled crossover or mutation and its effect on fitness")
+@StackTrace(false)
+public class OperatorEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(OperatorEvent.class);
+
+    @Label("Operator")
+    public String operator;
+
+    @Label("Fitness Before")
+    public double fitnessBefore;
+
+    @Label("Fitness After")
+    public double fitnessAfter;
+
+    @Label("Feasible")
+    @Description("Whether the chromosome is feasible after the operator")
+    public boolean feasible;
+
+    @Label("Improved")
+    public boolean improved;
+
+    /**
+     * A begun event if the event type is being recorded and this invocation is sampled, otherwise null.
+     * Sampling draws from ThreadLocalRandom, so recording never changes the course of a seeded run.
+     */
+    public static OperatorEvent sample() {
+        if (!TYPE.isEnabled() || ThreadLocalRandom.current().nextInt(Parameters.JFR_OPERATOR_SAMPLE) != 0) {
+            return null;
+        }
+
+        OperatorEvent event = new OperatorEvent();
+        event.begin();
+
+        return event;
+    }
+
+    public void commit(String operator, double fitnessBefore, double fitnessAfter, boolean feasible) {
+        this.operator = operator;
+        this.fitnessBefore = fitnessBefore;
+        this.fitnessAfter = fitnessAfter;
+        this.feasible = feasible;
+        this.improved = fitnessAfter < fitnessBefore;
+
+        commit();
+    }
+}
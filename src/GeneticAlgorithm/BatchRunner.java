@@ -0,0 +1,261 @@
+package GeneticAlgorithm;
+
+import Models.MDVRP;
+import Utilities.Parameters;
+import Utilities.ProblemInit;
+import Utilities.RandomStream;
+import Utilities.SolverConfig;
+import Utilities.Utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs every given instance with Parameters.BATCH_SEEDS seeds, BATCH_WORKERS runs at a time. Each run is a
+ * single GeneticAlgorithm with BATCH_RUN_THREADS threads, and a run is only started once its estimated
+ * population memory fits in what is left of the heap, so large instances are not run side by side until
+ * the JVM runs out of memory. Problem instances are loaded once and shared by all runs on them.
+ *
+ * Every run checkpoints to and writes its solution as batch/<instance>-s<seed index>.res in the solutions
+ * folder, and the results are written as a tab separated table to batch/results.tsv.
+ */
+public class BatchRunner {
+
+    private static final long MB = 1 << 20;
+
+    private final List<String> instances;
+    private final SolverConfig config;
+    private final long seed;
+    private final Map<String, MDVRP> problems = new LinkedHashMap<>();
+    private final Map<String, Double> references = new LinkedHashMap<>();
+
+    public BatchRunner(List<String> instances) {
+        this(instances, SolverConfig.defaults());
+    }
+
+    public BatchRunner(List<String> instances, SolverConfig config) {
+        this(instances, config, config.getSeed() != null ? config.getSeed() : RandomStream.newSeed());
+    }
+
+    /**
+     * The seeds of all runs are drawn from the given seed, so a batch is reproducible as a whole.
+     */
+    public BatchRunner(List<String> instances, SolverConfig config, long seed) {
+        this.instances = instances;
+        this.config = config;
+        this.seed = seed;
+    }
+
+    public List<Result> main() throws IOException, InterruptedException {
+        Files.createDirectories(Paths.get(Parameters.SOLUTIONS_FOLDER, "batch"));
+
+        for (String instance : this.instances) {
+            this.problems.put(instance, ProblemInit.initializeProblem(instance).withConfig(this.config));
+            this.references.put(instance, readReference(instance));
+        }
+
+        // Whatever the loaded instances leave of the heap is shared out among the runs
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        int budget = (int) Math.max(1, free * Parameters.BATCH_MEMORY_FRACTION / MB);
+        Semaphore memory = new Semaphore(budget, true);
+
+        System.out.println("Seed: " + this.seed + ", " + this.instances.size() + " instances x " + Parameters.BATCH_SEEDS
+                + " seeds, " + Parameters.BATCH_WORKERS + " workers, " + budget + " MB for populations");
+
+        RandomStream random = new RandomStream(this.seed);
+        ExecutorService executor = Executors.newFixedThreadPool(Parameters.BATCH_WORKERS);
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (String instance : this.instances) {
+            for (int s = 0; s < Parameters.BATCH_SEEDS; s++) {
+                long runSeed = random.nextLong();
+                int seedIndex = s;
+
+                futures.add(executor.submit(() -> run(instance, seedIndex, runSeed, memory, budget)));
+            }
+        }
+
+        executor.shutdown();
+
+        List<Result> results = new ArrayList<>(futures.size());
+
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Batch run failed", e.getCause());
+            }
+        }
+
+        writeResults(results);
+
+        return results;
+    }
+
+    private Result run(String instance, int seedIndex, long seed, Semaphore memory, int budget) throws IOException, InterruptedException {
+        MDVRP problem = this.problems.get(instance);
+        // A run larger than the whole budget still gets to run, on its own
+        int permits = (int) Math.min(budget, Math.max(1, estimateMemory(problem) / MB));
+        String name = "batch/" + instance + "-s" + seedIndex;
+
+        memory.acquire(permits);
+
+        try {
+            GeneticAlgorithm ga = new GeneticAlgorithm(problem, seed, Parameters.BATCH_RUN_THREADS);
+            String solution = ga.main(name, false);
+
+            Utils.writeSolution(solution, name);
+
+            Result result = new Result(instance, seedIndex, seed,
+                    ga.getBestSolution().getFitness(problem),
+                    ga.getBestSolution().isFeasible(problem),
+                    this.references.get(instance),
+                    ga.getTimeToBest(), ga.getGenerations(), ga.getElapsedTime());
+
+            System.out.println(result);
+
+            return result;
+        } finally {
+            memory.release(permits);
+        }
+    }
+
+    /**
+     * Rough upper bound on the memory a run needs: population, parents and offspring, with every
+     * customer taking a route slot, a location index entry and prefix sums, and every vehicle its object
+     * and array headers.
+     */
+    static long estimateMemory(MDVRP problem) {
+        long chromosome = 64L * problem.getNumCustomers()
+                + 256L * problem.getNumDepots() * problem.getMaxVehicles();
+
+        return 3L * problem.getConfig().getPopulationSize() * chromosome;
+    }
+
+    /**
+     * The best known cost, the first line of the instance's reference solution, or NaN if there is none.
+     */
+    static double readReference(String instance) throws IOException {
+        Path file = Paths.get(Parameters.REFERENCE_FOLDER, instance + ".res");
+
+        if (!Files.exists(file)) {
+            return Double.NaN;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine();
+
+            return line != null ? Double.parseDouble(line.trim()) : Double.NaN;
+        }
+    }
+
+    private void writeResults(List<Result> results) throws IOException {
+        Path file = Paths.get(Parameters.SOLUTIONS_FOLDER, "batch", "results.tsv");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(Result.HEADER);
+            writer.newLine();
+
+            for (Result result : results) {
+                writer.write(result.toRow());
+                writer.newLine();
+            }
+        }
+
+        System.out.println("Instance     Runs   Best gap %   Mean gap %   Mean gens/sec");
+
+        for (String instance : this.instances) {
+            double bestGap = Double.POSITIVE_INFINITY, gapSum = 0, speedSum = 0;
+            int runs = 0;
+
+            for (Result result : results) {
+                if (result.instance.equals(instance)) {
+                    bestGap = Math.min(bestGap, result.getGap());
+                    gapSum += result.getGap();
+                    speedSum += result.getGenerationsPerSecond();
+                    runs++;
+                }
+            }
+
+            System.out.println(String.format("%-8s %8d %12.2f %12.2f %15.1f",
+                    instance, runs, bestGap, gapSum / runs, speedSum / runs));
+        }
+
+        System.out.println("Results written to " + file);
+    }
+
+    public static class Result {
+
+        static final String HEADER = "instance\tseed_index\tseed\tbest_cost\tfeasible\treference\tgap_percent"
+                + "\ttime_to_best_s\tgenerations\tgenerations_per_s\telapsed_s";
+
+        private final String instance;
+        private final int seedIndex;
+        private final long seed;
+        private final double bestCost;
+        private final boolean feasible;
+        private final double reference;
+        private final double timeToBest;
+        private final int generations;
+        private final double elapsedTime;
+
+        Result(String instance, int seedIndex, long seed, double bestCost, boolean feasible, double reference,
+               double timeToBest, int generations, double elapsedTime) {
+            this.instance = instance;
+            this.seedIndex = seedIndex;
+            this.seed = seed;
+            this.bestCost = bestCost;
+            this.feasible = feasible;
+            this.reference = reference;
+            this.timeToBest = timeToBest;
+            this.generations = generations;
+            this.elapsedTime = elapsedTime;
+        }
+
+        public String getInstance() {
+            return instance;
+        }
+
+        public double getBestCost() {
+            return bestCost;
+        }
+
+        /**
+         * Percentage above the reference cost, NaN without a reference.
+         */
+        public double getGap() {
+            return 100 * (this.bestCost - this.reference) / this.reference;
+        }
+
+        public double getGenerationsPerSecond() {
+            return this.generations / Math.max(this.elapsedTime, 1e-9);
+        }
+
+        String toRow() {
+            return String.format("%s\t%d\t%d\t%.2f\t%b\t%.2f\t%.2f\t%.1f\t%d\t%.1f\t%.1f",
+                    this.instance, this.seedIndex, this.seed, this.bestCost, this.feasible, this.reference,
+                    getGap(), this.timeToBest, this.generations, getGenerationsPerSecond(), this.elapsedTime);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s seed #%d: %.2f%s (gap %.2f%%), best after %.1f s, %.1f gens/sec",
+                    this.instance, this.seedIndex, this.bestCost, this.feasible ? "" : " infeasible",
+                    getGap(), this.timeToBest, getGenerationsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package GeneticAlgorithm;
+
+/**
+ * Population slots ordered by their cached fitness, least fit on top: a binary max-heap of slot indices that
+ * also knows where each slot sits in it, so that the fitness of any slot can be changed in O(log n) when its
+ * individual is replaced. Everything is allocated up front; no operation allocates.
+ */
+public class FitnessHeap {
+
+    private final int[] heap;
+    // Position of every slot in the heap
+    private final int[] position;
+    private final double[] fitness;
+
+    public FitnessHeap(double[] fitness) {
+        int n = fitness.length;
+
+        this.heap = new int[n];
+        this.position = new int[n];
+        this.fitness = fitness.clone();
+
+        for (int i = 0; i < n; i++) {
+            this.heap[i] = i;
+            this.position[i] = i;
+        }
+
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * The slot of the least fit individual.
+     */
+    public int worst() {
+        return this.heap[0];
+    }
+
+    public double getFitness(int slot) {
+        return this.fitness[slot];
+    }
+
+    /**
+     * Records a new fitness for the slot, as when its individual has been replaced.
+     */
+    public void update(int slot, double fitness) {
+        double previous = this.fitness[slot];
+        this.fitness[slot] = fitness;
+
+        if (fitness > previous) {
+            siftUp(this.position[slot]);
+        } else {
+            siftDown(this.position[slot]);
+        }
+    }
+
+    public int size() {
+        return this.heap.length;
+    }
+
+    private void siftUp(int i) {
+        int slot = this.heap[i];
+
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+
+            if (this.fitness[this.heap[parent]] >= this.fitness[slot]) {
+                break;
+            }
+
+            place(i, this.heap[parent]);
+            i = parent;
+        }
+
+        place(i, slot);
+    }
+
+    private void siftDown(int i) {
+        int n = this.heap.length;
+        int slot = this.heap[i];
+
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+
+            if (child + 1 < n && this.fitness[this.heap[child + 1]] > this.fitness[this.heap[child]]) {
+                child++;
+            }
+
+            if (this.fitness[this.heap[child]] <= this.fitness[slot]) {
+                break;
+            }
+
+            place(i, this.heap[child]);
+            i = child;
+        }
+
+        place(i, slot);
+    }
+
+    private void place(int i, int slot) {
+        this.heap[i] = slot;
+        this.position[slot] = i;
+    }
+}
@@ -0,0 +1,58 @@
+package GeneticAlgorithm;
+
+/**
+ * Fitness of recently evaluated solutions by their route hash, so that an offspring that turns out identical
+ * to a known solution is not evaluated again. The table is direct mapped with a fixed number of slots, a new
+ * solution replacing whatever shared its slot.
+ *
+ * Entries are immutable, so lookups are safe from the evaluation threads; inserts are made by one thread.
+ */
+public class FitnessMemo {
+
+    private final Entry[] table;
+    private final int mask;
+
+    /**
+     * A memo of at least the given number of slots, rounded up to a power of two.
+     */
+    public FitnessMemo(int size) {
+        int slots = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+
+        this.table = new Entry[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * The entry for the hash, or null if the solution is not known.
+     */
+    public Entry get(long hash) {
+        Entry entry = this.table[(int) hash & this.mask];
+
+        return entry != null && entry.hash == hash ? entry : null;
+    }
+
+    public void put(long hash, double fitness, boolean feasible) {
+        this.table[(int) hash & this.mask] = new Entry(hash, fitness, feasible);
+    }
+
+    public static class Entry {
+
+        private final long hash;
+        private final double fitness;
+        private final boolean feasible;
+
+        Entry(long hash, double fitness, boolean feasible) {
+            this.hash = hash;
+            this.fitness = fitness;
+            this.feasible = feasible;
+        }
+
+        public double getFitness() {
+            return fitness;
+        }
+
+        public boolean isFeasible() {
+            return feasible;
+        }
+    }
+}
@@ -1,78 +1,640 @@
 package GeneticAlgorithm;
 
+import Events.GenerationEvent;
+import Events.NewBestEvent;
+import Events.OperatorEvent;
 import Models.*;
+import Utilities.CheckpointWriter;
 import Utilities.Parameters;
-import Utilities.Utils;
-import org.apache.commons.lang.SerializationUtils;
+import Utilities.RandomStream;
+import Utilities.SolverConfig;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class GeneticAlgorithm {
 
+    public enum StopReason { GENERATIONS, TIME_LIMIT, CANCELLED, FITNESS_TARGET, STAGNATION }
+
     private MDVRP problem;
+    private final SolverConfig config;
     private ArrayList<Chromosome> population;
     private ArrayList<Chromosome> parents;
-    private final Random random = new Random();
+    private final long seed;
+    private final RandomStream random;
+    private final int threads;
+    // Null when running single-threaded
+    private final ForkJoinPool pool;
     private Chromosome bestSolution;
-
+    private CheckpointWriter checkpoints;
+    private int currentGeneration;
+    // Null unless Parameters.METRICS is set
+    private final Metrics metrics;
+    // Null when the configured fitness memo size is 0
+    private final FitnessMemo memo;
+    // Education state of each worker thread, reused for every offspring it educates
+    private final ThreadLocal<LocalSearch> localSearch;
+    // Steady-state mode only, set up by the first generation: cached fitness of each population slot, the two
+    // offspring being bred, and how many individuals of the population have each route hash
+    private FitnessHeap ranking;
+    private final Chromosome[] offspring = new Chromosome[2];
+    private final Map<Long, Integer> hashCounts = new HashMap<>();
+    private int memoHits;
+    // Set by run(): System.nanoTime() at its start and the nanoseconds it may take
+    private long runStart;
+    private long runLimit = Long.MAX_VALUE;
+    private volatile boolean cancelled;
+    private boolean verbose;
+    // Statistics of the last call to main() or run()
+    private int generations;
+    private double elapsedTime;
+    private double timeToBest;
+    private int restarts;
+    private StopReason stopReason;
+
+    /**
+     * A run with the problem's configuration, including its seed and number of threads.
+     */
     public GeneticAlgorithm(MDVRP problem) {
+        this(problem, problem.getConfig().getSeed() != null ? problem.getConfig().getSeed() : RandomStream.newSeed());
+    }
+
+    /**
+     * A run of the problem under the given configuration.
+     */
+    public GeneticAlgorithm(MDVRP problem, SolverConfig config) {
+        this(problem.withConfig(config));
+    }
+
+    /**
+     * All randomness is drawn from the given seed, so runs with the same seed give the same result
+     * regardless of the number of threads.
+     */
+    public GeneticAlgorithm(MDVRP problem, long seed) {
+        this(problem, seed, problem.getConfig().getThreads());
+    }
+
+    public GeneticAlgorithm(MDVRP problem, long seed, int threads) {
         this.problem = problem;
-        this.population = new ArrayList<>(Parameters.POPULATION_SIZE);
-        this.parents = new ArrayList<>(Parameters.POPULATION_SIZE);
+        this.config = problem.getConfig();
+        this.population = new ArrayList<>(this.config.getPopulationSize());
+        this.parents = new ArrayList<>(this.config.getPopulationSize());
+        this.seed = seed;
+        this.random = new RandomStream(seed);
+        this.threads = threads;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.metrics = Parameters.METRICS ? new Metrics(problem) : null;
+        this.memo = this.config.getFitnessMemoSize() > 0 ? new FitnessMemo(this.config.getFitnessMemoSize()) : null;
+        this.localSearch = ThreadLocal.withInitial(() -> new LocalSearch(problem));
+        this.runStart = System.nanoTime();
+    }
+
+    public String main() {
+        return main("temporary", true);
+    }
+
+    /**
+     * Runs until the configured number of generations, time limit or fitness target is reached, storing the best solution so far
+     * under the given solution file name every 100 generations, and returns the best solution. A null name stores
+     * nothing, neither checkpoints nor metrics.
+     */
+    public String main(String checkpoint, boolean verbose) {
+        if (verbose) {
+            System.out.println("Seed: " + this.seed + ", threads: " + this.threads);
+        }
+
+        initialize();
+        checkpointTo(checkpoint, verbose);
+
+        run(Duration.ofNanos((long) (this.config.getMaxTime() * 1e9)), null);
+
+        shutdown();
+
+        if (checkpoint != null) {
+            exportMetrics(checkpoint);
+        }
+
+        return createSolution();
+    }
+
+    /**
+     * Makes run() store the best solution so far under the given solution file name every 100 generations,
+     * printing progress if verbose; a null name stores nothing.
+     */
+    public void checkpointTo(String checkpoint, boolean verbose) {
+        this.checkpoints = checkpoint != null ? new CheckpointWriter(checkpoint) : null;
+        this.verbose = verbose;
+    }
+
+    public StopReason run(Duration timeLimit, Runnable onImprovement) {
+        return run(timeLimit, onImprovement, null);
+    }
+
+    /**
+     * Runs generations on the initialised population until the time limit, cancel(), the configured number
+     * of generations or fitness target, or stagnation stops it, calling onImprovement, if given, after every
+     * generation that found a new best solution, and afterGeneration, if given, with the number of every
+     * generation once it is done. A population that has not improved for the configured number of
+     * generations is restarted around its elite, or the run stops if restarts are off.
+     *
+     * The time limit and cancellation are also checked between offspring, so a generation that is cut short
+     * leaves the rest of its offspring unchanged.
+     */
+    public StopReason run(Duration timeLimit, Runnable onImprovement, IntConsumer afterGeneration) {
+        this.runStart = System.nanoTime();
+        this.runLimit = timeLimit.isNegative() ? 0 : saturatedNanos(timeLimit);
+        this.generations = 0;
+        this.timeToBest = 0;
+        this.restarts = 0;
+
+        double bestFitness = bestSolution.getFitness(this.problem);
+        double populationBest = populationBest();
+        int stagnant = 0;
+        StopReason reason = null;
+
+        for (int i = 0; reason == null; i++) {
+
+            if (i >= this.config.getGenerations()) {
+                reason = StopReason.GENERATIONS;
+                break;
+            }
+
+            if (i % 100 == 0 && this.checkpoints != null) {
+                this.checkpoints.submit(createSolution(), bestSolution.getFitness(this.problem), bestSolution.isFeasible(this.problem));
+
+                if (this.verbose) {
+                    System.out.println("========= Generation #" + i + " =========");
+                    System.out.println("Best Fitness: " + bestSolution.getFitness(problem));
+                    System.out.println("Temporary solution queued.");
+                }
+            }
+
+            if (bestSolution.getFitness(this.problem) <= this.config.getFitnessTarget()) {
+                reason = StopReason.FITNESS_TARGET;
+            } else if (this.cancelled) {
+                reason = StopReason.CANCELLED;
+            } else if (System.nanoTime() - this.runStart >= this.runLimit) {
+                reason = StopReason.TIME_LIMIT;
+            } else {
+
+                nextGeneration(i);
+                this.generations++;
+
+                if (bestSolution.getFitness(this.problem) < bestFitness) {
+                    bestFitness = bestSolution.getFitness(this.problem);
+                    this.timeToBest = (System.nanoTime() - this.runStart) / 1e9;
+
+                    if (onImprovement != null) {
+                        onImprovement.run();
+                    }
+                }
+
+                double best = populationBest();
+
+                if (best < populationBest) {
+                    populationBest = best;
+                    stagnant = 0;
+                } else if (++stagnant == this.config.getStagnationGenerations()) {
+                    if (!this.config.isStagnationRestart()) {
+                        reason = StopReason.STAGNATION;
+                    } else if (!stopping()) {
+                        restart();
+                        this.restarts++;
+                        stagnant = 0;
+                    }
+                }
+
+                if (afterGeneration != null) {
+                    afterGeneration.accept(i);
+                }
+
+            }
+        }
+
+        this.elapsedTime = (System.nanoTime() - this.runStart) / 1e9;
+        this.runLimit = Long.MAX_VALUE;
+        this.stopReason = reason;
+
+        return reason;
+    }
+
+    /**
+     * Asks a running main() or run() to stop after the offspring at hand; safe to call from any thread.
+     * The run stays cancelled.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Whether the generation under way should wrap up, because the run is cancelled or out of time.
+     */
+    private boolean stopping() {
+        return this.cancelled || System.nanoTime() - this.runStart >= this.runLimit;
+    }
+
+    /**
+     * Replaces all but the fittest individuals of the population, the configured elite or at least one, with
+     * new random ones, refilling their chromosomes in place. The best solution so far is kept. A run that is
+     * cancelled or out of time leaves the rest of the population as it is.
+     */
+    public void restart() {
+        boolean[] elite = new boolean[this.population.size()];
+
+        for (int i : selectIndices(this.population, Math.max(1, this.config.getElitism()), true)) {
+            elite[i] = true;
+        }
+
+        for (int i = 0; i < this.population.size() && !stopping(); i++) {
+            if (!elite[i]) {
+                this.population.get(i).randomize(this.problem, this.random);
+            }
+        }
+
+        // A steady-state population is ranked afresh by its next generation
+        this.ranking = null;
+        this.hashCounts.clear();
+    }
+
+    private double populationBest() {
+        double best = Double.POSITIVE_INFINITY;
+
+        for (Chromosome chromosome : this.population) {
+            best = Math.min(best, chromosome.getFitness(this.problem));
+        }
+
+        return best;
     }
 
-    public String main() throws IOException {
+    private static long saturatedNanos(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    public void initialize() {
         initPopulation();
         scheduleRoutes(this.problem);
 
-        bestSolution = this.population.get(0);
+        // The best solution is kept in a chromosome of its own, as those of the population are recycled
+        bestSolution = new Chromosome(this.population.get(0));
+    }
 
+    public void nextGeneration(int generation) {
+        if (this.config.isSteadyState()) {
+            nextSteadyStateGeneration(generation);
+            return;
+        }
+
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+
+        this.currentGeneration = generation;
         long start = System.nanoTime();
 
-        for (int i = 0; i < Parameters.GENERATIONS; i++) {
+        resetPopulation();
+
+        elitism();
+        long elitism = System.nanoTime();
+
+        tournamentSelection();
+        long selection = System.nanoTime();
+
+        boolean intraDepotCriteria = generation % 10 == 0;
+
+        nextPopulation(intraDepotCriteria);
+        long variation = System.nanoTime();
+
+        getFitness();
+        long evaluation = System.nanoTime();
+
+        bestFeasible();
+        long end = System.nanoTime();
+
+        if (this.metrics != null) {
+            this.metrics.endGeneration(generation, start, elitism, selection, variation, evaluation, end);
+        }
+
+        if (event.shouldCommit()) {
+            event.seed = this.seed;
+            event.generation = generation;
+            event.bestFitness = this.bestSolution.getFitness(this.problem);
+            event.bestFeasible = this.bestSolution.isFeasible(this.problem);
+            event.elitism = elitism - start;
+            event.selection = selection - elitism;
+            event.variation = variation - selection;
+            event.evaluation = evaluation - variation;
+            event.bestFeasibleUpdate = end - evaluation;
+            event.commit();
+        }
+    }
+
+    /**
+     * Steady-state counterpart of a generation: breeds as many offspring as a generation would, a pair at a time
+     * from two tournament winners, and puts each straight into the population in place of an individual it
+     * beats. The population, the offspring and the fitness ranking are reused throughout, an individual that
+     * is replaced becoming the next offspring. Runs on the calling thread only.
+     */
+    private void nextSteadyStateGeneration(int generation) {
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+
+        this.currentGeneration = generation;
+        long start = System.nanoTime();
+
+        if (this.ranking == null) {
+            startSteadyState();
+        }
+
+        boolean interDepot = generation % 10 == 0;
+
+        for (int pair = 0; pair < (this.config.getPopulationSize() - this.config.getElitism()) / 2 && !stopping(); pair++) {
+            Chromosome c1 = this.offspring[0];
+            Chromosome c2 = this.offspring[1];
+
+            c1.copyFrom(this.population.get(tournament()));
+            c2.copyFrom(this.population.get(tournament()));
+
+            vary(c1, c2, interDepot, this.random);
+
+            replace(0);
+            replace(1);
+        }
+
+        // Selection, evaluation and replacement are interleaved with variation and timed with it
+        long variation = System.nanoTime();
+
+        if (this.metrics != null) {
+            this.metrics.memoHits(this.memoHits);
+            this.metrics.population(this.population);
+            this.metrics.endGeneration(generation, start, start, start, variation, variation, variation);
+        }
+
+        this.memoHits = 0;
+
+        if (event.shouldCommit()) {
+            event.seed = this.seed;
+            event.generation = generation;
+            event.bestFitness = this.bestSolution.getFitness(this.problem);
+            event.bestFeasible = this.bestSolution.isFeasible(this.problem);
+            event.variation = variation - start;
+            event.commit();
+        }
+    }
+
+    /**
+     * Ranks the initial population and sets up the offspring.
+     */
+    private void startSteadyState() {
+        double[] fitness = new double[this.population.size()];
+
+        for (int i = 0; i < fitness.length; i++) {
+            Chromosome chromosome = this.population.get(i);
+
+            fitness[i] = chromosome.getFitness(this.problem);
+            this.hashCounts.merge(chromosome.getHash(), 1, Integer::sum);
+        }
+
+        this.ranking = new FitnessHeap(fitness);
+
+        if (this.offspring[0] == null) {
+            this.offspring[0] = new Chromosome(this.population.get(0));
+            this.offspring[1] = new Chromosome(this.population.get(0));
+        }
+
+        bestFeasible();
+    }
+
+    /**
+     * Slot of the winner of a binary tournament, by the same rule as tournamentSelection().
+     */
+    private int tournament() {
+        int i = this.random.nextInt(this.population.size());
+        int j = this.random.nextInt(this.population.size());
+
+        if (this.random.nextDouble() <= this.config.getKeepBest()) {
+            return this.ranking.getFitness(i) < this.ranking.getFitness(j) ? i : j;
+        }
+
+        return this.random.nextInt(2) == 1 ? i : j;
+    }
+
+    /**
+     * Puts offspring k into the population in place of the worst individual, or of the most similar one of a
+     * window of individuals drawn at random, if it is fitter than that individual and no copy of it is there
+     * yet. The individual it replaces becomes offspring k.
+     */
+    private void replace(int k) {
+        Chromosome child = this.offspring[k];
 
-            if (i % 100 == 0) {
-                storeSolution();
+        evaluate(child);
+
+        if (this.hashCounts.containsKey(child.getHash())) {
+            return;
+        }
+
+        if (child.isFeasible(this.problem) && child.getFitness(this.problem) < this.bestSolution.getFitness(this.problem)) {
+            // A fitness from the memo only vouches for the hash, so it is checked before it can become the best
+            child.confirmEvaluation(this.problem);
+        }
+
+        int slot = this.config.getReplacementWindow() == 0 ? this.ranking.worst() : mostSimilar(child);
+        double fitness = child.getFitness(this.problem);
+
+        if (fitness >= this.ranking.getFitness(slot)) {
+            return;
+        }
+
+        this.offspring[k] = place(slot, child);
+
+        if (child.isFeasible(this.problem) && fitness < this.bestSolution.getFitness(this.problem)) {
+            double previous = this.bestSolution.getFitness(this.problem);
+
+            this.bestSolution.copyFrom(child);
+            newBestEvent(previous);
+        }
+    }
+
+    /**
+     * Puts an evaluated chromosome into the given slot of a steady-state population and returns the individual
+     * it replaced.
+     */
+    private Chromosome place(int slot, Chromosome chromosome) {
+        Chromosome replaced = this.population.set(slot, chromosome);
+
+        this.hashCounts.merge(replaced.getHash(), -1, (count, minus) -> count == 1 ? null : count - 1);
+        this.hashCounts.merge(chromosome.getHash(), 1, Integer::sum);
+        this.ranking.update(slot, chromosome.getFitness(this.problem));
+
+        return replaced;
+    }
 
-                System.out.println("========= Generation #" + i + " =========");
-                System.out.println("Best Fitness: " + bestSolution.getFitness(problem));
-                System.out.println("Temporary solution stored.");
+    /**
+     * Slot of the individual closest to the chromosome by broken pairs distance, out of the configured
+     * number of slots drawn at random.
+     */
+    private int mostSimilar(Chromosome chromosome) {
+        int closest = -1;
+        int closestDistance = Integer.MAX_VALUE;
+
+        for (int i = 0; i < this.config.getReplacementWindow(); i++) {
+            int slot = this.random.nextInt(this.population.size());
+            int distance = chromosome.brokenPairs(this.population.get(slot));
+
+            if (distance < closestDistance) {
+                closest = slot;
+                closestDistance = distance;
             }
+        }
 
-            long elapsedTime = (System.nanoTime() - start)/1000000000;
+        return closest;
+    }
 
-            if (elapsedTime < Parameters.MAX_TIME && bestSolution.getFitness(this.problem) > Parameters.FITNESS_TARGET) {
+    /**
+     * Evaluates one chromosome, through the memo if there is one.
+     */
+    private void evaluate(Chromosome chromosome) {
+        if (this.memo == null || !chromosome.takeChanged()) {
+            chromosome.getFitness(this.problem);
+            return;
+        }
 
-                resetPopulation();
+        FitnessMemo.Entry known = this.memo.get(chromosome.getHash());
 
-                elitism();
+        if (known != null) {
+            // Taken even when metrics or a sampled event have evaluated the chromosome already, so that rounding
+            // in the order of the sum cannot make the run depend on whether they are on
+            chromosome.setEvaluation(known.getFitness(), known.isFeasible());
+            this.memoHits++;
+        } else {
+            this.memo.put(chromosome.getHash(), chromosome.getFitness(this.problem), chromosome.isFeasible(this.problem));
+        }
+    }
 
-                tournamentSelection();
+    public void shutdown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
 
-                boolean intraDepotCriteria = i % 10 == 0;
+        if (this.checkpoints != null) {
+            this.checkpoints.flush();
+        }
+    }
 
-                nextPopulation(intraDepotCriteria);
+    public long getSeed() {
+        return seed;
+    }
 
-                getFitness();
+    public int getGenerations() {
+        return generations;
+    }
 
-                bestFeasible();
+    /**
+     * Seconds spent in the generation loop of main() or run().
+     */
+    public double getElapsedTime() {
+        return elapsedTime;
+    }
 
-            } else {
+    /**
+     * Seconds into the generation loop of main() or run() at which the best solution was found.
+     */
+    public double getTimeToBest() {
+        return timeToBest;
+    }
 
-                break;
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * Why the last main() or run() stopped, null before either has.
+     */
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public SolverConfig getConfig() {
+        return config;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the collected metrics, if any, to the metrics folder under the given name.
+     */
+    public void exportMetrics(String name) {
+        if (this.metrics == null) {
+            return;
+        }
+
+        String extension = "jsonl".equals(Parameters.METRICS_FORMAT) ? ".jsonl" : ".csv";
+
+        try {
+            this.metrics.export(Paths.get(Parameters.METRICS_FOLDER, name + extension));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write metrics " + name, e);
+        }
+    }
+
+    public Chromosome getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * Returns independent copies of the best individuals in the population, safe to hand to another thread.
+     */
+    public List<Chromosome> getEmigrants(int count) {
+        List<Chromosome> emigrants = new ArrayList<>(count);
+
+        for (int i : selectIndices(this.population, count, true)) {
+            Chromosome emigrant = new Chromosome(this.population.get(i));
+            emigrant.unshare();
+            emigrants.add(emigrant);
+        }
 
+        return emigrants;
+    }
+
+    /**
+     * Replaces the worst individuals in the population with the given immigrants.
+     */
+    public void immigrate(List<Chromosome> immigrants) {
+        if (this.ranking != null) {
+            for (Chromosome immigrant : immigrants) {
+                place(this.ranking.worst(), immigrant);
             }
+            return;
         }
 
-        return createSolution();
+        int[] worst = selectIndices(this.population, immigrants.size(), false);
+
+        for (int i = 0; i < worst.length; i++) {
+            this.population.set(worst[i], immigrants.get(i));
+        }
     }
 
     public void initPopulation() {
-        for (int i = 0; i < Parameters.POPULATION_SIZE; i++) {
-            this.population.add(new Chromosome(problem));
+        for (int i = 0; i < this.config.getPopulationSize(); i++) {
+            this.population.add(new Chromosome(problem, this.random));
         }
     }
 
@@ -82,85 +644,189 @@ public class GeneticAlgorithm {
         }
     }
 
+    /**
+     * Swaps the two population buffers: the population becomes the parents, and the chromosomes of the
+     * generation before are recycled for the offspring by elitism() and tournamentSelection().
+     */
     public void resetPopulation() {
-        this.parents.clear();
-        this.parents.addAll(this.population);
-        this.population.clear();
+        ArrayList<Chromosome> recycled = this.parents;
+
+        this.parents = this.population;
+        this.population = recycled;
     }
 
     public void elitism() {
-        this.parents.sort((c1, c2) -> Chromosome.compare(c1, c2, this.problem));
+        int slot = 0;
 
-        for (int i = this.parents.size() - 1; i >= Parameters.POPULATION_SIZE - Parameters.ELITISM; i--) {
-            this.population.add(parents.get(i));
+        for (int i : selectIndices(this.parents, this.config.getElitism(), true)) {
+            copyInto(slot++, this.parents.get(i));
         }
     }
 
+    /**
+     * Makes the chromosome in the given slot of the population a copy of another, adding a new chromosome
+     * only while the buffer is not yet full.
+     */
+    private void copyInto(int slot, Chromosome chromosome) {
+        if (slot < this.population.size()) {
+            this.population.get(slot).copyFrom(chromosome);
+        } else {
+            this.population.add(new Chromosome(chromosome));
+        }
+    }
+
+    /**
+     * Indices of the count fittest (or least fit) chromosomes, in that order, found by partial selection
+     * on the cached fitness values rather than by sorting the whole list.
+     */
+    private int[] selectIndices(List<Chromosome> chromosomes, int count, boolean fittest) {
+        int n = chromosomes.size();
+        count = Math.min(count, n);
+
+        double[] keys = new double[n];
+        int[] order = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            double fitness = chromosomes.get(i).getFitness(this.problem);
+            keys[i] = fittest ? fitness : -fitness;
+            order[i] = i;
+        }
+
+        for (int k = 0; k < count; k++) {
+            int min = k;
+
+            for (int j = k + 1; j < n; j++) {
+                if (keys[order[j]] < keys[order[min]]) {
+                    min = j;
+                }
+            }
+
+            int tmp = order[k];
+            order[k] = order[min];
+            order[min] = tmp;
+        }
+
+        return Arrays.copyOf(order, count);
+    }
+
     public void tournamentSelection() {
-        for (int i = 0; i < Parameters.POPULATION_SIZE - Parameters.ELITISM; i++) {
+        for (int i = 0; i < this.config.getPopulationSize() - this.config.getElitism(); i++) {
             Chromosome p1 = parents.get(random.nextInt(parents.size()));
             Chromosome p2 = parents.get(random.nextInt(parents.size()));
 
-            Chromosome clone;
+            Chromosome winner;
 
-            if (Math.random() <= Parameters.KEEP_BEST) {
+            if (random.nextDouble() <= this.config.getKeepBest()) {
                 if (Chromosome.compare(p1, p2, this.problem) > 0) {
 
-                    clone = (Chromosome) SerializationUtils.clone(p1);
+                    winner = p1;
 
                 } else {
 
-                    clone = (Chromosome) SerializationUtils.clone(p2);
+                    winner = p2;
 
                 }
             } else {
                 if (random.nextInt(2) == 1) {
 
-                    clone = (Chromosome) SerializationUtils.clone(p1);
+                    winner = p1;
 
                 } else {
 
-                    clone = (Chromosome) SerializationUtils.clone(p2);
+                    winner = p2;
 
                 }
             }
 
-            population.add(clone);
+            copyInto(this.config.getElitism() + i, winner);
         }
     }
 
     public void nextPopulation(boolean interDepot) {
-        for (int i = Parameters.ELITISM; i < Parameters.POPULATION_SIZE; i+=2) {
-            if(Math.random() <= Parameters.XOVER_PROB) {
-                Chromosome p1 = this.population.get(i);
-                Chromosome p2 = this.population.get(i + 1);
-
-                crossover(p1, p2);
-
-                if (Math.random() <= Parameters.MUTATION_PROB) {
-                    if (interDepot) {
-                        this.interDepot(p1);
-                    } else {
-                        this.mutation(p1);
-                    }
+        int numPairs = (this.config.getPopulationSize() - this.config.getElitism()) / 2;
 
-                }
-                if (Math.random() <= Parameters.MUTATION_PROB) {
-                    if (interDepot) {
-                        this.interDepot(p2);
-                    } else {
-                        this.mutation(p2);
-                    }
+        // Each pair gets its own stream, split off in a fixed order, so the outcome does not depend on scheduling
+        RandomStream[] pairStreams = new RandomStream[numPairs];
+        for (int pair = 0; pair < numPairs; pair++) {
+            pairStreams[pair] = this.random.split();
+        }
 
-                }
+        parallelFor(numPairs, pair -> {
+            if (stopping()) {
+                return;
+            }
+
+            int i = this.config.getElitism() + 2 * pair;
+
+            vary(this.population.get(i), this.population.get(i + 1), interDepot, pairStreams[pair]);
+        });
+
+        if (this.config.getDuplicateMutations() > 0) {
+            rejectDuplicates(this.random.split());
+        }
+
+        Collections.shuffle(this.population, this.random);
+    }
 
+    /**
+     * Crosses two offspring over with the crossover probability, then mutates and educates them.
+     */
+    private void vary(Chromosome c1, Chromosome c2, boolean interDepot, Random random) {
+        if (random.nextDouble() <= this.config.getXoverProb()) {
+            // A sampled crossover event carries the first offspring
+            OperatorEvent event = OperatorEvent.sample();
+            boolean observed = this.metrics != null || event != null;
+            double before1 = observed ? c1.getFitness(this.problem) : 0;
+            double before2 = observed ? c2.getFitness(this.problem) : 0;
+
+            crossover(c1, c2, random);
+
+            if (observed) {
+                observe(Metrics.Operator.CROSSOVER, c1, before1, event);
+                observe(Metrics.Operator.CROSSOVER, c2, before2, null);
             }
+
+            if (random.nextDouble() <= this.config.getMutationProb()) {
+                mutate(c1, interDepot, random);
+            }
+            if (random.nextDouble() <= this.config.getMutationProb()) {
+                mutate(c2, interDepot, random);
+            }
+
+            // Only draws from the generator when education is on, so runs without it are unchanged
+            if (this.config.getEducationRate() > 0) {
+                if (random.nextDouble() < this.config.getEducationRate()) {
+                    educate(c1);
+                }
+                if (random.nextDouble() < this.config.getEducationRate()) {
+                    educate(c2);
+                }
+            }
+
         }
+    }
 
-        Collections.shuffle(this.population);
+    /**
+     * Mutates offspring that duplicate an earlier member of the population, by route hash, until they differ
+     * or the configured number of tries is used up. Runs in population order so that it is reproducible.
+     */
+    private void rejectDuplicates(Random random) {
+        Set<Long> hashes = new HashSet<>(2 * this.population.size());
+
+        for (int i = 0; i < this.population.size(); i++) {
+            Chromosome chromosome = this.population.get(i);
+
+            // Elites are kept as they are
+            for (int tries = 0; i >= this.config.getElitism() && tries < this.config.getDuplicateMutations()
+                    && hashes.contains(chromosome.getHash()); tries++) {
+                mutate(chromosome, false, random);
+            }
+
+            hashes.add(chromosome.getHash());
+        }
     }
 
-    public void crossover(Chromosome c1, Chromosome c2) {
+    public void crossover(Chromosome c1, Chromosome c2, Random random) {
         int randomDepot = random.nextInt(this.problem.getNumDepots());
 
         Depot depot1 = c1.getDepot(randomDepot);
@@ -169,92 +835,228 @@ public class GeneticAlgorithm {
         Vehicle v1 = depot1.getVehicle(random.nextInt(this.problem.getMaxVehicles()));
         Vehicle v2 = depot2.getVehicle(random.nextInt(this.problem.getMaxVehicles()));
 
-        ArrayList<Customer> removeCustomers1 = (ArrayList<Customer>) SerializationUtils.clone(v1.getCustomers());
-        ArrayList<Customer> removeCustomers2 = (ArrayList<Customer>) SerializationUtils.clone(v2.getCustomers());
+        int[] removeCustomers1 = v1.getCustomers();
+        int[] removeCustomers2 = v2.getCustomers();
 
         c1.removeCustomers(removeCustomers2);
         c2.removeCustomers(removeCustomers1);
 
-        depot1.bestCostInsertions(removeCustomers2, this.problem);
-        depot2.bestCostInsertions(removeCustomers1, this.problem);
+        depot1.bestCostInsertions(removeCustomers2, this.problem, random);
+        depot2.bestCostInsertions(removeCustomers1, this.problem, random);
+
+        // Re-cutting the routes in their current order never lengthens a feasible depot
+        if (this.config.isSplitCrossover()) {
+            depot1.splitRoutes(depot1.getTour(), this.problem);
+            depot2.splitRoutes(depot2.getTour(), this.problem);
+        }
+
+    }
+
+    private void mutate(Chromosome chromosome, boolean interDepot, Random random) {
+        OperatorEvent event = OperatorEvent.sample();
+        boolean observed = this.metrics != null || event != null;
+        double before = observed ? chromosome.getFitness(this.problem) : 0;
+        Metrics.Operator operator;
+
+        if (interDepot) {
+            this.interDepot(chromosome, random);
+            operator = Metrics.Operator.INTER_DEPOT;
+        } else {
+            operator = this.mutation(chromosome, random);
+        }
+
+        if (observed) {
+            observe(operator, chromosome, before, event);
+        }
+    }
+
+    /**
+     * Improves an offspring by local search for at most the configured education time.
+     */
+    private void educate(Chromosome chromosome) {
+        OperatorEvent event = OperatorEvent.sample();
+        boolean observed = this.metrics != null || event != null;
+        double before = observed ? chromosome.getFitness(this.problem) : 0;
+        long now = System.nanoTime();
+        // Education never runs past the end of the run
+        long deadline = now + Math.max(0, Math.min((long) (this.config.getEducationTime() * 1e6),
+                this.runLimit - (now - this.runStart)));
+
+        this.localSearch.get().educate(chromosome, deadline);
+
+        if (observed) {
+            observe(Metrics.Operator.EDUCATION, chromosome, before, event);
+        }
+    }
+
+    /**
+     * Evaluates the chromosome after an operator and hands the outcome to the metrics and the sampled event,
+     * whichever are present. Fitness is only evaluated around operators while one of them is.
+     */
+    private void observe(Metrics.Operator operator, Chromosome chromosome, double before, OperatorEvent event) {
+        if (event != null) {
+            event.end();
+        }
+
+        double after = chromosome.getFitness(this.problem);
+
+        if (this.metrics != null) {
+            this.metrics.record(operator, before, after);
+        }
 
+        if (event != null) {
+            event.commit(operator.name(), before, after, chromosome.isFeasible(this.problem));
+        }
     }
 
-    public void mutation(Chromosome chromosome) {
-        double mutationType = Math.random();
+    /**
+     * Applies one of the intra-depot mutations at random and returns which.
+     */
+    public Metrics.Operator mutation(Chromosome chromosome, Random random) {
+        double mutationType = random.nextDouble();
 
         if (mutationType < 0.4) {
 
-            this.customerReroute(chromosome);
+            this.customerReroute(chromosome, random);
+            return Metrics.Operator.REROUTE;
 
         } else if (mutationType < 0.8) {
 
-            this.reverse(chromosome);
+            this.reverse(chromosome, random);
+            return Metrics.Operator.REVERSE;
 
         } else {
 
-            this.swap(chromosome);
+            this.swap(chromosome, random);
+            return Metrics.Operator.SWAP;
 
         }
     }
 
-    public void interDepot(Chromosome chromosome) {
-        chromosome.interDepot(problem);
+    public void interDepot(Chromosome chromosome, Random random) {
+        chromosome.interDepot(problem, random);
     }
 
-    public void customerReroute(Chromosome chromosome) {
+    public void customerReroute(Chromosome chromosome, Random random) {
         int randomDepot = random.nextInt(this.problem.getNumDepots());
 
         Depot depot = chromosome.getDepot(randomDepot);
 
-        depot.customerReroute(this.problem);
+        depot.customerReroute(this.problem, random);
 
     }
 
-    public void swap(Chromosome chromosome) {
+    public void swap(Chromosome chromosome, Random random) {
         int depotNum = random.nextInt(this.problem.getNumDepots());
 
         Depot depot = chromosome.getDepot(depotNum);
 
-        depot.swap();
+        depot.swap(random);
 
     }
 
-    public void reverse(Chromosome chromosome) {
+    public void reverse(Chromosome chromosome, Random random) {
         int depotNum = random.nextInt(this.problem.getNumDepots());
 
         Depot depot = chromosome.getDepot(depotNum);
 
-        depot.reverse();
+        depot.reverse(random);
     }
 
     public void getFitness() {
-        double totalFitness = 0.0;
-        double counter = 0;
-        for (Chromosome c : population) {
-            totalFitness += c.getFitness(this.problem);
-            counter++;
+        if (this.memo == null) {
+            // Fitness is cached on each depot, so evaluating up front in parallel leaves only cached reads below
+            parallelFor(this.population.size(), i -> this.population.get(i).getFitness(this.problem));
+        } else {
+            evaluateWithMemo();
+        }
+
+        if (this.metrics != null) {
+            this.metrics.population(this.population);
         }
-        //System.out.println("AVG: " + totalFitness/counter);
-        //System.out.println("BEST: " + this.parents.get(this.parents.size()-1).getFitness(this.problem));
     }
 
-    public void bestFeasible() {
-        this.population.sort((c1, c2) -> Chromosome.compare(c1, c2, this.problem));
+    /**
+     * Evaluates the population, taking the fitness of solutions already in the memo from there. Lookups only
+     * see earlier generations, as this generation's solutions are added afterwards in population order, so
+     * the outcome does not depend on scheduling. Every changed chromosome is looked up, including those that
+     * metrics or a sampled event already evaluated, so the run and its hits are the same whether or not they
+     * are on.
+     */
+    private void evaluateWithMemo() {
+        // Per chromosome: 0 unchanged, 1 found in the memo, 2 evaluated
+        byte[] outcome = new byte[this.population.size()];
+
+        parallelFor(this.population.size(), i -> {
+            Chromosome chromosome = this.population.get(i);
+
+            if (!chromosome.takeChanged()) {
+                return;
+            }
 
-        for (int i = this.parents.size() - 1; i >= 0; i--) {
-            Chromosome c = this.parents.get(i);
+            FitnessMemo.Entry known = this.memo.get(chromosome.getHash());
 
-            if (c.isFeasible(this.problem)) {
-                //System.out.println("BEST FEASIBLE: " + c.getFitness(this.problem));
+            if (known != null) {
+                chromosome.setEvaluation(known.getFitness(), known.isFeasible());
+                outcome[i] = 1;
+            } else {
+                chromosome.getFitness(this.problem);
+                outcome[i] = 2;
+            }
+        });
 
-                if (c.getFitness(this.problem) < bestSolution.getFitness(this.problem)) {
-                    bestSolution = c;
-                }
+        int hits = 0;
 
-                return;
+        for (int i = 0; i < outcome.length; i++) {
+            Chromosome chromosome = this.population.get(i);
+
+            if (outcome[i] == 2) {
+                this.memo.put(chromosome.getHash(), chromosome.getFitness(this.problem), chromosome.isFeasible(this.problem));
+            } else if (outcome[i] == 1) {
+                hits++;
             }
         }
+
+        if (this.metrics != null) {
+            this.metrics.memoHits(hits);
+        }
+    }
+
+    public void bestFeasible() {
+        Chromosome best = null;
+        double bestFitness = bestSolution.getFitness(this.problem);
+
+        for (Chromosome c : this.population) {
+            if (c.isFeasible(this.problem) && c.getFitness(this.problem) < bestFitness) {
+                // A fitness from the memo only vouches for the hash, so it is checked before it can become the best
+                c.confirmEvaluation(this.problem);
+
+                if (c.isFeasible(this.problem) && c.getFitness(this.problem) < bestFitness) {
+                    best = c;
+                    bestFitness = c.getFitness(this.problem);
+                }
+            }
+        }
+
+        if (best != null) {
+            double previous = bestSolution.getFitness(this.problem);
+
+            bestSolution.copyFrom(best);
+            newBestEvent(previous);
+        }
+    }
+
+    private void newBestEvent(double previousFitness) {
+        NewBestEvent event = new NewBestEvent();
+
+        if (event.shouldCommit()) {
+            event.seed = this.seed;
+            event.generation = this.currentGeneration;
+            event.previousFitness = previousFitness;
+            event.fitness = bestSolution.getFitness(this.problem);
+            event.feasible = bestSolution.isFeasible(this.problem);
+            event.commit();
+        }
     }
 
     public String createSolution() {
@@ -265,7 +1067,7 @@ public class GeneticAlgorithm {
             int vehicleNum = 1;
 
             for (Vehicle vehicle : depot.getVehicles()) {
-                if (vehicle.getCustomers().size() > 0) {
+                if (vehicle.getNumCustomers() > 0) {
                     solution.append(depot.getId() + 1).append("\t");
 
                     solution.append(vehicleNum).append("\t");
@@ -276,8 +1078,8 @@ public class GeneticAlgorithm {
 
                     solution.append(0).append(" ");
 
-                    for (Customer customer : vehicle.getCustomers()) {
-                        solution.append(customer.getId() + 1).append(" ");
+                    for (int i = 0; i < vehicle.getNumCustomers(); i++) {
+                        solution.append(vehicle.getCustomer(i) + 1).append(" ");
                     }
 
                     solution.append(0).append("\n");
@@ -288,9 +1090,13 @@ public class GeneticAlgorithm {
         return solution.toString();
     }
 
-    public void storeSolution() throws IOException {
-        String tempSolution = createSolution();
-
-        Utils.writeSolution(tempSolution, "temporary");
+    private void parallelFor(int n, IntConsumer body) {
+        if (this.pool == null) {
+            for (int i = 0; i < n; i++) {
+                body.accept(i);
+            }
+        } else {
+            this.pool.submit(() -> IntStream.range(0, n).parallel().forEach(body)).join();
+        }
     }
 }
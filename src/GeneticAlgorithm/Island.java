@@ -0,0 +1,108 @@
+package GeneticAlgorithm;
+
+import Models.Chromosome;
+import Models.MDVRP;
+import Utilities.Parameters;
+import Utilities.RandomStream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One population of the island model. Each island evolves its own GeneticAlgorithm on its own thread
+ * and exchanges elite individuals with the other islands through lock-free inboxes.
+ */
+public class Island implements Runnable {
+
+    private final int id;
+    private final IslandModel model;
+    private final GeneticAlgorithm ga;
+    private final MDVRP problem;
+    private final Random random;
+    private final ConcurrentLinkedQueue<Chromosome> inbox = new ConcurrentLinkedQueue<>();
+
+    private long start;
+    private double timeToTarget = -1;
+    private int migrantsSent;
+    private int migrantsReceived;
+
+    public Island(int id, IslandModel model, GeneticAlgorithm ga, MDVRP problem, long seed) {
+        this.id = id;
+        this.model = model;
+        this.ga = ga;
+        this.problem = problem;
+        this.random = new RandomStream(seed);
+    }
+
+    /**
+     * Runs the island's GA through GeneticAlgorithm.run(), so it stops and restarts as a single run does,
+     * migrating every Parameters.MIGRATION_INTERVAL generations.
+     */
+    @Override
+    public void run() {
+        this.start = System.nanoTime();
+        this.ga.checkpointTo("island-" + this.id, false);
+
+        this.ga.run(Duration.ofNanos((long) (this.ga.getConfig().getMaxTime() * 1e9)), null, this::afterGeneration);
+
+        this.ga.shutdown();
+    }
+
+    private void afterGeneration(int generation) {
+        if (this.timeToTarget < 0 && getBestFitness() <= this.ga.getConfig().getFitnessTarget()) {
+            this.timeToTarget = (System.nanoTime() - this.start) / 1e9;
+            this.model.stop();
+        }
+
+        if ((generation + 1) % Parameters.MIGRATION_INTERVAL == 0) {
+            this.migrate();
+        }
+    }
+
+    private void migrate() {
+        List<Chromosome> emigrants = this.ga.getEmigrants(Parameters.MIGRANTS);
+        this.model.getDestination(this, this.random).inbox.addAll(emigrants);
+        this.migrantsSent += emigrants.size();
+
+        List<Chromosome> immigrants = new ArrayList<>();
+        Chromosome immigrant;
+
+        while ((immigrant = this.inbox.poll()) != null) {
+            immigrants.add(immigrant);
+        }
+
+        if (!immigrants.isEmpty()) {
+            this.ga.immigrate(immigrants);
+            this.migrantsReceived += immigrants.size();
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public GeneticAlgorithm getGeneticAlgorithm() {
+        return ga;
+    }
+
+    public double getBestFitness() {
+        return this.ga.getBestSolution().getFitness(this.problem);
+    }
+
+    public String getStatistics() {
+        return String.format("%6d %11d %9.1f %14.2f %13.1f %14s %6d %8d %8d  %s",
+                this.id,
+                this.ga.getGenerations(),
+                this.ga.getGenerations() / Math.max(this.ga.getElapsedTime(), 1e-9),
+                getBestFitness(),
+                this.ga.getTimeToBest(),
+                this.timeToTarget < 0 ? "-" : String.format("%.1f", this.timeToTarget),
+                this.migrantsSent,
+                this.migrantsReceived,
+                this.ga.getRestarts(),
+                this.ga.getStopReason());
+    }
+}
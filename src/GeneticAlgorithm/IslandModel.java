@@ -0,0 +1,94 @@
+package GeneticAlgorithm;
+
+import Models.MDVRP;
+import Utilities.Parameters;
+import Utilities.RandomStream;
+
+import java.util.Random;
+
+/**
+ * Runs Parameters.ISLANDS independent populations on separate threads, sharing the read-only problem
+ * instance. Every MIGRATION_INTERVAL generations each island sends copies of its MIGRANTS best individuals
+ * to another island (ring or random topology) and replaces its worst individuals with whatever it has received.
+ */
+public class IslandModel {
+
+    private final Island[] islands;
+    private final long seed;
+    private volatile boolean stopped;
+
+    public IslandModel(MDVRP problem) {
+        this(problem, problem.getConfig().getSeed() != null ? problem.getConfig().getSeed() : RandomStream.newSeed());
+    }
+
+    public IslandModel(MDVRP problem, long seed) {
+        this.seed = seed;
+        this.islands = new Island[Parameters.ISLANDS];
+
+        RandomStream random = new RandomStream(seed);
+        int threadsPerIsland = Math.max(1, problem.getConfig().getThreads() / Parameters.ISLANDS);
+
+        for (int i = 0; i < this.islands.length; i++) {
+            GeneticAlgorithm ga = new GeneticAlgorithm(problem, random.nextLong(), threadsPerIsland);
+            ga.initialize();
+
+            this.islands[i] = new Island(i, this, ga, problem, random.nextLong());
+        }
+    }
+
+    public String main() throws InterruptedException {
+        System.out.println("Seed: " + this.seed + ", islands: " + this.islands.length
+                + ", migration every " + Parameters.MIGRATION_INTERVAL + " generations (" + Parameters.MIGRATION_TOPOLOGY + ")");
+
+        Thread[] threads = new Thread[this.islands.length];
+
+        for (int i = 0; i < this.islands.length; i++) {
+            threads[i] = new Thread(this.islands[i], "island-" + i);
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.println("Island  Generations  Gens/sec   Best fitness  Time to best  Time to target  Sent  Received  Restarts  Stopped by");
+
+        Island best = this.islands[0];
+
+        for (Island island : this.islands) {
+            System.out.println(island.getStatistics());
+            island.getGeneticAlgorithm().exportMetrics("island-" + island.getId());
+
+            if (island.getBestFitness() < best.getBestFitness()) {
+                best = island;
+            }
+        }
+
+        return best.getGeneticAlgorithm().createSolution();
+    }
+
+    /**
+     * Cancels the runs of all islands; safe to call from any thread.
+     */
+    public void stop() {
+        this.stopped = true;
+
+        for (Island island : this.islands) {
+            island.getGeneticAlgorithm().cancel();
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    Island getDestination(Island source, Random random) {
+        if ("random".equals(Parameters.MIGRATION_TOPOLOGY) && this.islands.length > 2) {
+            int destination = random.nextInt(this.islands.length - 1);
+
+            return this.islands[destination >= source.getId() ? destination + 1 : destination];
+        }
+
+        return this.islands[(source.getId() + 1) % this.islands.length];
+    }
+}
@@ -3,20 +3,34 @@ package GeneticAlgorithm;
 import Models.MDVRP;
 import Utilities.Parameters;
 import Utilities.ProblemInit;
+import Utilities.RandomStream;
+import Utilities.SolverConfig;
 import Utilities.Utils;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 
 public class Main {
 
-    public static void runProblem(String filename) throws IOException {
+    public static void runProblem(String filename) throws IOException, InterruptedException {
+        runProblem(filename, SolverConfig.defaults());
+    }
+
+    public static void runProblem(String filename, SolverConfig config) throws IOException, InterruptedException {
         long startTime = System.nanoTime();
 
-        MDVRP problem = ProblemInit.initializeProblem(filename);
+        MDVRP problem = ProblemInit.initializeProblem(filename).withConfig(config);
 
-        GeneticAlgorithm ga = new GeneticAlgorithm(problem);
+        String solution;
 
-        String solution = ga.main();
+        if (Parameters.ISLANDS > 1) {
+            solution = new IslandModel(problem).main();
+        } else {
+            solution = new GeneticAlgorithm(problem).main();
+        }
 
         Utils.writeSolution(solution, filename);
 
@@ -35,21 +49,34 @@ public class Main {
         Runtime.getRuntime().exec(cmd);
     }
 
-    public static void main(String[] args) throws IOException {
+    /**
+     * Arguments are key=value pairs, optionally prefixed with --. Besides the SolverConfig settings and "config"
+     * for a properties file of them, "problem" picks the instance, "all=true" runs the batch, "tune" names a
+     * candidates file to race, and "instances" is a comma separated list of instances for the batch or the race.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Properties arguments = SolverConfig.parseArguments(args);
+        String problem = (String) arguments.remove("problem");
+        String all = (String) arguments.remove("all");
+        String candidates = (String) arguments.remove("tune");
+        String instances = (String) arguments.remove("instances");
 
-        if (Parameters.RUN_ALL) {
-            for (String filename : Parameters.ALL_PROBLEMS) {
+        SolverConfig config = SolverConfig.fromProperties(arguments);
+        List<String> selected = instances != null ? Arrays.asList(instances.split(",")) : Parameters.ALL_PROBLEMS;
 
-                Main.runProblem(filename);
+        if (candidates != null) {
 
-            }
-        } else {
+            long seed = config.getSeed() != null ? config.getSeed() : RandomStream.newSeed();
+            new RaceTuner(RaceTuner.readCandidates(Paths.get(candidates), config), selected, seed).main();
 
-            Main.runProblem(Parameters.PROBLEM_FILE);
+        } else if (all != null ? Boolean.parseBoolean(all) : Parameters.RUN_ALL) {
 
-        }
+            new BatchRunner(selected, config).main();
 
+        } else {
 
+            Main.runProblem(problem != null ? problem : Parameters.PROBLEM_FILE, config);
 
+        }
     }
 }
@@ -0,0 +1,283 @@
+package GeneticAlgorithm;
+
+import Models.Chromosome;
+import Models.Depot;
+import Models.MDVRP;
+import Models.Vehicle;
+import Utilities.Parameters;
+import Utilities.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per generation statistics of one GeneticAlgorithm: wall time of each phase, how often each operator was
+ * applied and how often it left its chromosome fitter than before, best, average and worst fitness, and
+ * diversity. Only created when Parameters.METRICS is set; without it the GA records nothing.
+ *
+ * Rows are kept in memory as plain numbers and only formatted on export, as CSV or JSON lines.
+ */
+public class Metrics {
+
+    public enum Phase { ELITISM, SELECTION, VARIATION, EVALUATION, BEST_FEASIBLE }
+
+    public enum Operator { CROSSOVER, REROUTE, REVERSE, SWAP, INTER_DEPOT, EDUCATION }
+
+    private static final int PHASES = Phase.values().length;
+    private static final int OPERATORS = Operator.values().length;
+    private static final String[] COLUMNS = columns();
+
+    private final MDVRP problem;
+    private final LongAdder[] applied = new LongAdder[OPERATORS];
+    private final LongAdder[] improved = new LongAdder[OPERATORS];
+    private final List<double[]> rows = new ArrayList<>();
+    private final double[] population = new double[5];
+    private int memoHits;
+
+    public Metrics(MDVRP problem) {
+        this.problem = problem;
+
+        for (int i = 0; i < OPERATORS; i++) {
+            this.applied[i] = new LongAdder();
+            this.improved[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts one application of the operator; safe to call from the offspring worker threads.
+     */
+    public void record(Operator operator, double fitnessBefore, double fitnessAfter) {
+        this.applied[operator.ordinal()].increment();
+
+        if (fitnessAfter < fitnessBefore) {
+            this.improved[operator.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Records fitness statistics and diversity of the evaluated population.
+     */
+    public void population(List<Chromosome> chromosomes) {
+        double best = Double.POSITIVE_INFINITY, worst = Double.NEGATIVE_INFINITY, total = 0;
+
+        for (Chromosome c : chromosomes) {
+            double fitness = c.getFitness(this.problem);
+            best = Math.min(best, fitness);
+            worst = Math.max(worst, fitness);
+            total += fitness;
+        }
+
+        this.population[0] = best;
+        this.population[1] = total / chromosomes.size();
+        this.population[2] = worst;
+        this.population[3] = diversity(chromosomes);
+        this.population[4] = duplicateRate(chromosomes);
+    }
+
+    /**
+     * Records how many offspring of the generation took their fitness from the memo.
+     */
+    public void memoHits(int hits) {
+        this.memoHits = hits;
+    }
+
+    /**
+     * Closes the row of the generation, given the System.nanoTime() at its start and at the end of each phase.
+     */
+    public void endGeneration(int generation, long start, long... phaseEnds) {
+        double[] row = new double[COLUMNS.length];
+        int column = 0;
+
+        row[column++] = generation;
+
+        for (int i = 0; i < PHASES; i++) {
+            row[column++] = (phaseEnds[i] - (i == 0 ? start : phaseEnds[i - 1])) / 1e6;
+        }
+
+        for (int i = 0; i < OPERATORS; i++) {
+            row[column++] = this.applied[i].sumThenReset();
+        }
+
+        for (int i = 0; i < OPERATORS; i++) {
+            row[column++] = this.improved[i].sumThenReset();
+        }
+
+        for (double value : this.population) {
+            row[column++] = value;
+        }
+
+        row[column++] = this.memoHits;
+        this.memoHits = 0;
+
+        this.rows.add(row);
+    }
+
+    public List<double[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * Writes all rows to the given file, as JSON lines if Parameters.METRICS_FORMAT is "jsonl", otherwise as CSV.
+     */
+    public void export(Path file) throws IOException {
+        boolean json = "jsonl".equals(Parameters.METRICS_FORMAT);
+        StringBuilder out = new StringBuilder(this.rows.size() * 256);
+
+        if (!json) {
+            out.append(String.join(",", COLUMNS)).append('\n');
+        }
+
+        for (double[] row : this.rows) {
+            if (json) {
+                out.append('{');
+            }
+
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+
+                if (json) {
+                    out.append('"').append(COLUMNS[i]).append("\":");
+                }
+
+                // Counts and the generation are whole numbers, the rest is printed at a fixed precision
+                if (row[i] == Math.rint(row[i])) {
+                    out.append((long) row[i]);
+                } else {
+                    out.append(String.format(Locale.ROOT, "%.4f", row[i]));
+                }
+            }
+
+            out.append(json ? "}\n" : "\n");
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        Utils.writeAtomically(file, out.toString());
+    }
+
+    /**
+     * Share of the chromosomes that duplicate one earlier in the list, by route hash.
+     */
+    private static double duplicateRate(List<Chromosome> chromosomes) {
+        Set<Long> hashes = new HashSet<>(2 * chromosomes.size());
+
+        for (Chromosome c : chromosomes) {
+            hashes.add(c.getHash());
+        }
+
+        return 1 - (double) hashes.size() / chromosomes.size();
+    }
+
+    /**
+     * Mean broken pairs distance over a sample of Parameters.METRICS_DIVERSITY_SAMPLE chromosomes, spread
+     * evenly over the population: the share of customers whose successor in one chromosome is not a
+     * neighbour of theirs in the other. 0 for a converged population, close to 1 for unrelated solutions.
+     */
+    private double diversity(List<Chromosome> chromosomes) {
+        int sample = Math.min(Parameters.METRICS_DIVERSITY_SAMPLE, chromosomes.size());
+
+        if (sample < 2) {
+            return 0;
+        }
+
+        int n = this.problem.getNumCustomers();
+        int[][] successors = new int[sample][];
+        int[][] predecessors = new int[sample][];
+
+        for (int s = 0; s < sample; s++) {
+            Chromosome c = chromosomes.get(s * chromosomes.size() / sample);
+            successors[s] = new int[n];
+            predecessors[s] = new int[n];
+
+            neighbours(c, successors[s], predecessors[s]);
+        }
+
+        double total = 0;
+        int pairs = 0;
+
+        for (int a = 0; a < sample; a++) {
+            for (int b = a + 1; b < sample; b++) {
+                int broken = 0;
+
+                for (int c = 0; c < n; c++) {
+                    int next = successors[a][c];
+
+                    if (next != successors[b][c] && next != predecessors[b][c]) {
+                        broken++;
+                    }
+                }
+
+                total += (double) broken / n;
+                pairs++;
+            }
+        }
+
+        return total / pairs;
+    }
+
+    /**
+     * Fills in each customer's successor and predecessor, with depot d encoded as -(d + 1).
+     */
+    private static void neighbours(Chromosome chromosome, int[] successors, int[] predecessors) {
+        for (Depot depot : chromosome.getDepots()) {
+            int depotNode = -(depot.getId() + 1);
+
+            for (Vehicle vehicle : depot.getVehicles()) {
+                int previous = depotNode;
+
+                for (int i = 0; i < vehicle.getNumCustomers(); i++) {
+                    int customer = vehicle.getCustomer(i);
+
+                    predecessors[customer] = previous;
+
+                    if (previous >= 0) {
+                        successors[previous] = customer;
+                    }
+
+                    previous = customer;
+                }
+
+                if (previous >= 0) {
+                    successors[previous] = depotNode;
+                }
+            }
+        }
+    }
+
+    private static String[] columns() {
+        List<String> columns = new ArrayList<>();
+        columns.add("generation");
+
+        for (Phase phase : Phase.values()) {
+            columns.add(phase.name().toLowerCase(Locale.ROOT) + "_ms");
+        }
+
+        for (Operator operator : Operator.values()) {
+            columns.add(operator.name().toLowerCase(Locale.ROOT) + "_applied");
+        }
+
+        for (Operator operator : Operator.values()) {
+            columns.add(operator.name().toLowerCase(Locale.ROOT) + "_improved");
+        }
+
+        columns.add("best_fitness");
+        columns.add("average_fitness");
+        columns.add("worst_fitness");
+        columns.add("diversity");
+        columns.add("duplicate_rate");
+        columns.add("memo_hits");
+
+        return columns.toArray(new String[0]);
+    }
+}
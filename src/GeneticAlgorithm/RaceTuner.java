@@ -0,0 +1,407 @@
+package GeneticAlgorithm;
+
+import Models.MDVRP;
+import Utilities.Parameters;
+import Utilities.ProblemInit;
+import Utilities.RandomStream;
+import Utilities.SolverConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Races candidate configurations against each other (F-Race). A block is one instance and seed. All
+ * surviving candidates run on it with the same seed and a time budget of Parameters.TUNE_BUDGET seconds,
+ * TUNE_WORKERS runs at a time, and the cost at the end of the budget is ranked within the block. From
+ * TUNE_MIN_BLOCKS blocks on, a Friedman test on the ranks tells whether the candidates differ. If they do,
+ * every candidate whose rank sum is significantly worse than the best one's (Conover's post-hoc test at
+ * level TUNE_ALPHA) is dropped, so the remaining budget goes to the candidates still in contention.
+ *
+ * Blocks go through TUNE_SEEDS seeds on every instance, one seed at a time over all instances, until a
+ * single candidate is left or the blocks run out.
+ */
+public class RaceTuner {
+
+    private final List<SolverConfig> candidates;
+    private final List<String> instances;
+    private final long seed;
+
+    public RaceTuner(List<SolverConfig> candidates, List<String> instances, long seed) {
+        this.candidates = candidates;
+        this.instances = instances;
+        this.seed = seed;
+    }
+
+    /**
+     * Candidates from a text file with one candidate per line, each a space separated list of key=value
+     * settings applied on top of the base configuration. Blank lines and lines starting with # are skipped.
+     * Every candidate runs single threaded, for the tuning budget rather than a number of generations.
+     */
+    public static List<SolverConfig> readCandidates(Path file, SolverConfig base) {
+        SolverConfig budgeted = base.toBuilder()
+                .threads(1)
+                .generations(Integer.MAX_VALUE)
+                .maxTime(Parameters.TUNE_BUDGET)
+                .build();
+        List<SolverConfig> candidates = new ArrayList<>();
+
+        try {
+            for (String line : Files.readAllLines(file)) {
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                SolverConfig.Builder builder = budgeted.toBuilder();
+
+                for (String setting : line.split("\\s+")) {
+                    int split = setting.indexOf('=');
+
+                    if (split <= 0) {
+                        throw new IllegalArgumentException("Expected key=value in " + file + ", got " + setting);
+                    }
+
+                    builder.set(setting.substring(0, split), setting.substring(split + 1));
+                }
+
+                candidates.add(builder.build());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read candidates " + file, e);
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Runs the race and returns the winner: the survivor with the lowest rank sum, ties going to the lower mean cost.
+     */
+    public SolverConfig main() throws InterruptedException, IOException {
+        int k = this.candidates.size();
+
+        if (k == 0) {
+            throw new IllegalArgumentException("No candidates to race");
+        }
+
+        // Per instance, the problem as seen by each candidate, all sharing the instance's distances
+        Map<String, MDVRP[]> problems = new LinkedHashMap<>();
+        Map<String, Double> references = new LinkedHashMap<>();
+
+        for (String instance : this.instances) {
+            MDVRP problem = ProblemInit.initializeProblem(instance);
+            MDVRP[] views = new MDVRP[k];
+
+            for (int c = 0; c < k; c++) {
+                views[c] = problem.withConfig(this.candidates.get(c));
+            }
+
+            problems.put(instance, views);
+            references.put(instance, BatchRunner.readReference(instance));
+        }
+
+        boolean[] alive = new boolean[k];
+        Arrays.fill(alive, true);
+        int[] eliminatedAt = new int[k];
+        double[] costSum = new double[k];
+        double[] gapSum = new double[k];
+        int[] runs = new int[k];
+        // Costs of the blocks raced so far, NaN where the candidate had already been dropped
+        List<double[]> blocks = new ArrayList<>();
+
+        int totalBlocks = Parameters.TUNE_SEEDS * this.instances.size();
+        RandomStream random = new RandomStream(this.seed);
+        ExecutorService executor = Executors.newFixedThreadPool(Parameters.TUNE_WORKERS);
+
+        System.out.println("Racing " + k + " candidates on " + this.instances.size() + " instances x "
+                + Parameters.TUNE_SEEDS + " seeds, " + Parameters.TUNE_BUDGET + " s per run, seed " + this.seed);
+
+        try {
+            for (int block = 0; block < totalBlocks && countAlive(alive) > 1; block++) {
+                String instance = this.instances.get(block % this.instances.size());
+                long blockSeed = random.nextLong();
+                double[] costs = new double[k];
+                Arrays.fill(costs, Double.NaN);
+
+                List<Future<Double>> futures = new ArrayList<>(k);
+
+                for (int c = 0; c < k; c++) {
+                    MDVRP problem = problems.get(instance)[c];
+
+                    futures.add(alive[c] ? executor.submit(() -> run(problem, blockSeed)) : null);
+                }
+
+                for (int c = 0; c < k; c++) {
+                    if (futures.get(c) == null) {
+                        continue;
+                    }
+
+                    try {
+                        costs[c] = futures.get(c).get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Tuning run failed", e.getCause());
+                    }
+
+                    double reference = references.get(instance);
+                    costSum[c] += costs[c];
+                    gapSum[c] += 100 * (costs[c] - reference) / reference;
+                    runs[c]++;
+                }
+
+                blocks.add(costs);
+
+                if (blocks.size() >= Parameters.TUNE_MIN_BLOCKS) {
+                    int dropped = eliminate(blocks, alive, Parameters.TUNE_ALPHA);
+
+                    for (int c = 0; c < k; c++) {
+                        if (!alive[c] && eliminatedAt[c] == 0) {
+                            eliminatedAt[c] = block + 1;
+                        }
+                    }
+
+                    System.out.println("Block " + (block + 1) + " (" + instance + "): " + countAlive(alive)
+                            + " candidates left" + (dropped > 0 ? ", dropped " + dropped : ""));
+                } else {
+                    System.out.println("Block " + (block + 1) + " (" + instance + ")");
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        double[] rankSums = rankSums(blocks, alive);
+        int best = -1;
+
+        for (int c = 0; c < k; c++) {
+            if (alive[c] && (best < 0 || rankSums[c] < rankSums[best]
+                    || rankSums[c] == rankSums[best] && costSum[c] / runs[c] < costSum[best] / runs[best])) {
+                best = c;
+            }
+        }
+
+        System.out.println("Candidate  Runs   Mean cost   Mean gap %   Rank sum   Status");
+
+        for (int c = 0; c < k; c++) {
+            System.out.println(String.format("%9d %5d %11.2f %12.2f %10s   %s",
+                    c + 1, runs[c], costSum[c] / runs[c], gapSum[c] / runs[c],
+                    alive[c] ? String.format("%.1f", rankSums[c]) : "-",
+                    alive[c] ? (c == best ? "best" : "alive") : "dropped after block " + eliminatedAt[c]));
+        }
+
+        SolverConfig winner = this.candidates.get(best);
+
+        System.out.println("Best configuration (candidate " + (best + 1) + "): " + winner);
+
+        return winner;
+    }
+
+    private double run(MDVRP problem, long seed) {
+        GeneticAlgorithm ga = new GeneticAlgorithm(problem, seed, 1);
+        ga.main(null, false);
+
+        return ga.getBestSolution().getFitness(problem);
+    }
+
+    /**
+     * Drops the candidates that are significantly worse than the best one over the given blocks, and returns
+     * how many were dropped. Only the blocks every surviving candidate ran on count, which is all of them.
+     */
+    static int eliminate(List<double[]> blocks, boolean[] alive, double alpha) {
+        int k = countAlive(alive);
+        int b = blocks.size();
+
+        if (k < 2 || b < 2) {
+            return 0;
+        }
+
+        double[] rankSums = rankSums(blocks, alive);
+        double sumSquares = 0;
+
+        for (double[] costs : blocks) {
+            for (double rank : ranks(costs, alive)) {
+                sumSquares += rank * rank;
+            }
+        }
+
+        // Friedman statistic with the tie correction, as in Conover (1999)
+        double c = b * k * (k + 1) * (k + 1) / 4.0;
+        double spread = 0;
+        int best = -1;
+
+        for (int i = 0; i < alive.length; i++) {
+            if (alive[i]) {
+                spread += Math.pow(rankSums[i] - b * (k + 1) / 2.0, 2);
+
+                if (best < 0 || rankSums[i] < rankSums[best]) {
+                    best = i;
+                }
+            }
+        }
+
+        if (sumSquares - c <= 0) {
+            // Every block is a complete tie
+            return 0;
+        }
+
+        double t = (k - 1) * spread / (sumSquares - c);
+
+        if (t <= chiSquareQuantile(1 - alpha, k - 1)) {
+            return 0;
+        }
+
+        double variance = 2 * b * (sumSquares - c) / ((b - 1) * (k - 1)) * (1 - t / (b * (k - 1)));
+        double critical = tQuantile(1 - alpha / 2, (b - 1) * (k - 1));
+        int dropped = 0;
+
+        for (int i = 0; i < alive.length; i++) {
+            // With perfect agreement between blocks the variance vanishes and any rank difference is significant
+            if (alive[i] && i != best && (variance <= 0
+                    ? rankSums[i] > rankSums[best]
+                    : (rankSums[i] - rankSums[best]) / Math.sqrt(variance) > critical)) {
+                alive[i] = false;
+                dropped++;
+            }
+        }
+
+        return dropped;
+    }
+
+    private static double[] rankSums(List<double[]> blocks, boolean[] alive) {
+        double[] sums = new double[alive.length];
+
+        for (double[] costs : blocks) {
+            double[] ranks = ranks(costs, alive);
+
+            for (int i = 0, r = 0; i < alive.length; i++) {
+                if (alive[i]) {
+                    sums[i] += ranks[r++];
+                }
+            }
+        }
+
+        return sums;
+    }
+
+    /**
+     * Ranks of the alive candidates' costs within a block, 1 for the lowest, ties sharing their mean rank.
+     */
+    private static double[] ranks(double[] costs, boolean[] alive) {
+        int n = countAlive(alive);
+        double[] values = new double[n];
+
+        for (int i = 0, r = 0; i < alive.length; i++) {
+            if (alive[i]) {
+                values[r++] = costs[i];
+            }
+        }
+
+        double[] ranks = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            int below = 0, equal = 0;
+
+            for (int j = 0; j < n; j++) {
+                if (values[j] < values[i]) {
+                    below++;
+                } else if (values[j] == values[i]) {
+                    equal++;
+                }
+            }
+
+            ranks[i] = below + (equal + 1) / 2.0;
+        }
+
+        return ranks;
+    }
+
+    private static int countAlive(boolean[] alive) {
+        int count = 0;
+
+        for (boolean a : alive) {
+            if (a) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Chi-square quantile: exact for 1 and 2 degrees of freedom, the Wilson-Hilferty approximation (within
+     * 0.5% from 3 degrees of freedom up) beyond.
+     */
+    static double chiSquareQuantile(double p, int degrees) {
+        if (degrees == 1) {
+            double z = normalQuantile((1 + p) / 2);
+
+            return z * z;
+        }
+
+        if (degrees == 2) {
+            return -2 * Math.log(1 - p);
+        }
+
+        double z = normalQuantile(p);
+        double h = 2.0 / (9 * degrees);
+
+        return degrees * Math.pow(1 - h + z * Math.sqrt(h), 3);
+    }
+
+    /**
+     * Student's t quantile by the Cornish-Fisher expansion around the normal quantile (Abramowitz and Stegun
+     * 26.7.5), accurate to about 1% from 3 degrees of freedom up.
+     */
+    static double tQuantile(double p, int degrees) {
+        double z = normalQuantile(p);
+        double z2 = z * z;
+        double v = degrees;
+
+        return z
+                + z * (z2 + 1) / (4 * v)
+                + z * ((5 * z2 + 16) * z2 + 3) / (96 * v * v)
+                + z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * v * v * v)
+                + z * ((((79 * z2 + 776) * z2 + 1482) * z2 - 1920) * z2 - 945) / (92160 * v * v * v * v);
+    }
+
+    /**
+     * Acklam's rational approximation of the standard normal quantile, relative error below 1.2e-9.
+     */
+    static double normalQuantile(double p) {
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+        double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+
+        if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+
+        double q = p - 0.5;
+        double r = q * q;
+
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
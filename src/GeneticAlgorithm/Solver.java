@@ -0,0 +1,154 @@
+package GeneticAlgorithm;
+
+import Models.MDVRP;
+import Utilities.SolverConfig;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Anytime interface to the GA, for callers with a latency budget: solve() runs until a time limit or deadline,
+ * or until it is cancelled from another thread, stops on its own at the configured generations, fitness
+ * target or stagnation, and returns the best solution found. Every new best solution is handed to the
+ * improvement listener as soon as its generation ends, so a caller can act on a good answer before the end.
+ *
+ * Each call to solve() is a fresh run of the problem's configuration, seed included.
+ */
+public class Solver {
+
+    private final MDVRP problem;
+    private Consumer<Result> listener;
+    private volatile boolean cancelled;
+    // The run under way, if any, to pass a cancellation on to
+    private volatile GeneticAlgorithm running;
+
+    public Solver(MDVRP problem) {
+        this.problem = problem;
+    }
+
+    public Solver(MDVRP problem, SolverConfig config) {
+        this(problem.withConfig(config));
+    }
+
+    /**
+     * Sets the listener told of every new best solution, called on the solving thread.
+     */
+    public Solver onImprovement(Consumer<Result> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public Result solve(Instant deadline) {
+        return solve(Duration.between(Instant.now(), deadline));
+    }
+
+    /**
+     * Runs for at most the given time, counted from the call and including setting up the population.
+     */
+    public Result solve(Duration timeLimit) {
+        long start = System.nanoTime();
+        GeneticAlgorithm ga = new GeneticAlgorithm(this.problem);
+
+        // Published before the flag is read, so a concurrent cancel() reaches this run either way
+        this.running = ga;
+
+        if (this.cancelled) {
+            ga.cancel();
+        }
+
+        try {
+            ga.initialize();
+
+            GeneticAlgorithm.StopReason reason = ga.run(timeLimit.minusNanos(System.nanoTime() - start),
+                    this.listener == null ? null : () -> this.listener.accept(result(ga, start, null)));
+
+            return result(ga, start, reason);
+        } finally {
+            ga.shutdown();
+            this.running = null;
+        }
+    }
+
+    /**
+     * Stops the run under way after the offspring at hand, and any later run at once; safe to call from any
+     * thread.
+     */
+    public void cancel() {
+        this.cancelled = true;
+
+        GeneticAlgorithm ga = this.running;
+
+        if (ga != null) {
+            ga.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private Result result(GeneticAlgorithm ga, long start, GeneticAlgorithm.StopReason reason) {
+        return new Result(ga.getBestSolution().getFitness(this.problem), ga.getBestSolution().isFeasible(this.problem),
+                ga.createSolution(), ga.getGenerations(), ga.getRestarts(), (System.nanoTime() - start) / 1e9, reason);
+    }
+
+    /**
+     * The best solution at some point of a run, in the format of the solution files.
+     */
+    public static class Result {
+
+        private final double fitness;
+        private final boolean feasible;
+        private final String solution;
+        private final int generations;
+        private final int restarts;
+        private final double elapsedTime;
+        private final GeneticAlgorithm.StopReason stopReason;
+
+        Result(double fitness, boolean feasible, String solution, int generations, int restarts, double elapsedTime,
+               GeneticAlgorithm.StopReason stopReason) {
+            this.fitness = fitness;
+            this.feasible = feasible;
+            this.solution = solution;
+            this.generations = generations;
+            this.restarts = restarts;
+            this.elapsedTime = elapsedTime;
+            this.stopReason = stopReason;
+        }
+
+        public double getFitness() {
+            return fitness;
+        }
+
+        public boolean isFeasible() {
+            return feasible;
+        }
+
+        public String getSolution() {
+            return solution;
+        }
+
+        public int getGenerations() {
+            return generations;
+        }
+
+        public int getRestarts() {
+            return restarts;
+        }
+
+        /**
+         * Seconds since solve() was called.
+         */
+        public double getElapsedTime() {
+            return elapsedTime;
+        }
+
+        /**
+         * Why the run stopped, null for an improvement reported while it was running.
+         */
+        public GeneticAlgorithm.StopReason getStopReason() {
+            return stopReason;
+        }
+    }
+}
@@ -7,110 +7,265 @@ import java.util.*;
 
 public class Chromosome implements Serializable {
 
-    private ArrayList<Depot> depots = new ArrayList<>();
+    private final ArrayList<Depot> depots;
+    // Depots that may still be referenced by another chromosome and must be copied before they are modified
+    private final boolean[] shared;
+    // Depots this chromosome held alone before copyFrom(), refilled instead of allocating the next depot copy
+    private final Depot[] spare;
     private final int numDepots;
     private final int numCustomers;
-    private final double maxLoad;
     private final int maxVehicles;
-
-    public Chromosome(MDVRP problem) {
+    // Cached totals, recomputed only after a depot reports a change through setUpdated()
+    private boolean updated;
+    private double fitness;
+    private boolean feasible;
+    // Whether fitness and feasible were taken from an identical solution by setEvaluation()
+    private boolean borrowed;
+    // Whether the routes changed since the last takeChanged(); unlike updated, evaluating does not clear it
+    private boolean changed;
+    // Sum of the route hashes of all depots, see Vehicle.getHash()
+    private long hash;
+    // Location of every customer by id: depot, vehicle within the depot and position on the route (-1 if unassigned)
+    private final int[] customerDepot;
+    private final int[] customerVehicle;
+    private final int[] customerPosition;
+
+    public Chromosome(MDVRP problem, Random random) {
         this.numDepots = problem.getNumDepots();
         this.numCustomers = problem.getNumCustomers();
-        this.maxLoad = problem.getMaxLoad();
         this.maxVehicles = problem.getMaxVehicles();
-        this.clusterCustomers(problem);
+        this.depots = new ArrayList<>(this.numDepots);
+        this.shared = new boolean[this.numDepots];
+        this.spare = new Depot[this.numDepots];
+        this.updated = true;
+        this.changed = true;
+        this.customerDepot = new int[this.numCustomers];
+        this.customerVehicle = new int[this.numCustomers];
+        this.customerPosition = new int[this.numCustomers];
+
+        Arrays.fill(this.customerDepot, -1);
+        Arrays.fill(this.customerVehicle, -1);
+        Arrays.fill(this.customerPosition, -1);
+
+        this.clusterCustomers(problem, random);
+    }
+
+    /**
+     * Copy-on-write copy of another chromosome. Both chromosomes share the same depots until one of them
+     * requests a depot through getDepot(), at which point that depot alone is copied.
+     */
+    public Chromosome(Chromosome other) {
+        this.numDepots = other.numDepots;
+        this.numCustomers = other.numCustomers;
+        this.maxVehicles = other.maxVehicles;
+        this.depots = new ArrayList<>(Collections.nCopies(this.numDepots, null));
+        this.shared = new boolean[this.numDepots];
+        this.spare = new Depot[this.numDepots];
+        this.customerDepot = new int[this.numCustomers];
+        this.customerVehicle = new int[this.numCustomers];
+        this.customerPosition = new int[this.numCustomers];
+
+        this.copyFrom(other);
     }
 
+    /**
+     * Turns this chromosome into a copy-on-write copy of another of the same problem, as the copy constructor
+     * does, but reusing this chromosome's arrays. Depots this chromosome held alone are kept to be refilled by
+     * later depot copies; those it shared are left to the other chromosomes.
+     */
+    public void copyFrom(Chromosome other) {
+        if (other == this) {
+            return;
+        }
+
+        this.updated = other.updated;
+        this.fitness = other.fitness;
+        this.feasible = other.feasible;
+        this.hash = other.hash;
+        this.borrowed = other.borrowed;
+        this.changed = other.changed;
+        System.arraycopy(other.customerDepot, 0, this.customerDepot, 0, this.numCustomers);
+        System.arraycopy(other.customerVehicle, 0, this.customerVehicle, 0, this.numCustomers);
+        System.arraycopy(other.customerPosition, 0, this.customerPosition, 0, this.numCustomers);
+
+        // A depot whose fitness is stale is copied rather than shared, so that a shared depot is never evaluated
+        // lazily by two threads at once
+        for (int i = 0; i < this.numDepots; i++) {
+            if (this.depots.get(i) != null && !this.shared[i]) {
+                this.spare[i] = this.depots.get(i);
+            }
+
+            if (other.depots.get(i).isUpdated()) {
+                this.depots.set(i, copyDepot(i, other.depots.get(i)));
+                this.shared[i] = false;
+            } else {
+                this.depots.set(i, other.depots.get(i));
+                this.shared[i] = true;
+                other.shared[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns depot i for modification, copying it first if it is shared with another chromosome.
+     */
     public Depot getDepot(int i) {
+        if (this.shared[i]) {
+            this.depots.set(i, copyDepot(i, this.depots.get(i)));
+            this.shared[i] = false;
+        }
         return this.depots.get(i);
     }
 
+    /**
+     * A copy of the depot owned by this chromosome, refilling the spare depot i if there is one.
+     */
+    private Depot copyDepot(int i, Depot depot) {
+        Depot copy = this.spare[i];
+
+        if (copy == null) {
+            return new Depot(depot, this);
+        }
+
+        this.spare[i] = null;
+        copy.copyFrom(depot);
+
+        return copy;
+    }
+
+    /**
+     * Copies every depot that is still shared, so that this chromosome no longer references
+     * state owned by any other chromosome.
+     */
+    public void unshare() {
+        for (int i = 0; i < this.depots.size(); i++) {
+            this.getDepot(i);
+        }
+    }
+
     public Depot getDepotById(int id) {
-        for (Depot depot : depots) {
-            if (depot.getId() == id) {
-                return depot;
+        for (int i = 0; i < this.depots.size(); i++) {
+            if (this.depots.get(i).getId() == id) {
+                return this.getDepot(i);
             }
         }
         return null;
     }
 
-    public ArrayList<Depot> getDepots() {
-        return depots;
+    /**
+     * Read-only view of the depots. Use getDepot() to obtain a depot that is safe to modify.
+     */
+    public List<Depot> getDepots() {
+        return Collections.unmodifiableList(depots);
     }
 
-    public void removeCustomers(ArrayList<Customer> customers) {
-        for (Customer c : customers) {
-            for (Depot depot : this.depots) {
-                if(depot.removeCustomer(c)) {
-                    break;
-                }
+    public void removeCustomers(int[] customers) {
+        for (int c : customers) {
+            int depot = this.customerDepot[c];
+
+            if (depot >= 0) {
+                this.getDepot(depot).getVehicle(this.customerVehicle[c]).removeCustomerByIndex(this.customerPosition[c]);
             }
         }
     }
 
-    private void clusterCustomers(MDVRP problem) {
-        Map<Integer, ArrayList<Customer>> customers = new HashMap<>();
+    public int getDepotOf(int customer) {
+        return this.customerDepot[customer];
+    }
 
-        for (int customerId = 0; customerId < this.numCustomers; customerId++) {
+    public int getVehicleOf(int customer) {
+        return this.customerVehicle[customer];
+    }
 
-            ArrayList<Double> customer = problem.getCustomer(customerId);
-            double customerDemand = customer.get(2);
-            int closestDepot = problem.getClosestDepot(customerId);
+    public int getPositionOf(int customer) {
+        return this.customerPosition[customer];
+    }
 
-            if (!problem.isCalculated()) {
-                problem.getSecondClosestDepot(customerId, closestDepot);
-            }
+    public void setLocation(int customer, int depot, int vehicle, int position) {
+        this.customerDepot[customer] = depot;
+        this.customerVehicle[customer] = vehicle;
+        this.customerPosition[customer] = position;
+    }
 
-            Customer c = new Customer(customerId, customerDemand);
+    private void clusterCustomers(MDVRP problem, Random random) {
+        int[][] depotRoutes = this.shuffledClusters(problem, random);
+
+        for (int depotId = 0; depotId < this.numDepots; depotId++) {
+            Depot depot = new Depot(depotId, depotRoutes[depotId], problem.getMaxLoad(depotId), this.maxVehicles, problem, this);
+            depots.add(depot);
+        }
+    }
+
+    /**
+     * Turns this chromosome into a new random solution, as new Chromosome(problem, random) followed by
+     * scheduleRoutes() would give, but refilling its own depots.
+     */
+    public void randomize(MDVRP problem, Random random) {
+        int[][] depotRoutes = this.shuffledClusters(problem, random);
+
+        // All routes are emptied before any are scheduled, as a customer may be on a route of another depot
+        for (int i = 0; i < this.numDepots; i++) {
+            this.getDepot(i).reset(depotRoutes[i]);
+        }
+
+        this.scheduleRoutes(problem);
+    }
+
+    /**
+     * The customers closest to each depot, in random order.
+     */
+    private int[][] shuffledClusters(MDVRP problem, Random random) {
+        Map<Integer, ArrayList<Integer>> customers = new HashMap<>();
+
+        for (int customerId = 0; customerId < this.numCustomers; customerId++) {
+
+            int closestDepot = problem.getClosestDepot(customerId);
 
             if (customers.containsKey(closestDepot)) {
 
-                customers.get(closestDepot).add(c);
+                customers.get(closestDepot).add(customerId);
 
             } else {
 
-                ArrayList<Customer> newCustomerList = new ArrayList<>();
+                ArrayList<Integer> newCustomerList = new ArrayList<>();
 
-                newCustomerList.add(c);
+                newCustomerList.add(customerId);
                 customers.put(closestDepot, newCustomerList);
 
             }
         }
 
-        problem.setCalculated();
+        int[][] depotRoutes = new int[this.numDepots][];
 
         for (int depotId = 0; depotId < this.numDepots; depotId++) {
-            ArrayList<Customer> depotCustomers = customers.get(depotId);
-            Collections.shuffle(depotCustomers);
+            ArrayList<Integer> depotCustomers = customers.get(depotId);
+            Collections.shuffle(depotCustomers, random);
 
-            Depot depot = new Depot(depotId, customers.get(depotId), this.maxLoad, this.maxVehicles, problem);
-            depots.add(depot);
+            depotRoutes[depotId] = depotCustomers.stream().mapToInt(Integer::intValue).toArray();
         }
+
+        return depotRoutes;
     }
 
     public void scheduleRoutes(MDVRP problem) {
-        for (Depot depot : depots) {
-            depot.scheduleRoutes(problem);
+        for (int i = 0; i < this.depots.size(); i++) {
+            this.getDepot(i).scheduleRoutes(problem);
         }
     }
 
-    public void interDepot(MDVRP problem) {
-        ArrayList<Integer> swappable = problem.getRandomSwappable();
+    public void interDepot(MDVRP problem, Random random) {
+        ArrayList<Integer> swappable = problem.getRandomSwappable(random);
 
         Depot depot1 = this.getDepotById(swappable.get(1));
         Depot depot2 = this.getDepotById(swappable.get(2));
 
         int customerId = swappable.get(0);
 
-        Customer customer = depot1.getCustomerById(customerId);
-
-        if (customer != null) {
-            depot1.removeCustomer(customer);
-            depot2.bestCostInsertions(new ArrayList<>(Collections.singletonList(customer)), problem);
-        } else {
-            customer = depot2.getCustomerById(customerId);
-            depot2.removeCustomer(customer);
-            depot1.bestCostInsertions(new ArrayList<>(Collections.singletonList(customer)), problem);
+        if (this.customerDepot[customerId] == depot1.getId()) {
+            depot1.removeCustomer(customerId);
+            depot2.bestCostInsertions(new int[]{customerId}, problem, random);
+        } else if (depot2.removeCustomer(customerId)) {
+            depot1.bestCostInsertions(new int[]{customerId}, problem, random);
         }
 
     }
@@ -123,23 +278,128 @@ public class Chromosome implements Serializable {
     }
 
     public double getFitness(MDVRP problem) {
-
-        return depots.stream().mapToDouble(d -> d.getFitness(problem)).sum();
+        if (this.updated) {
+            this.evaluate(problem);
+        }
+        return this.fitness;
     }
 
     public boolean isFeasible(MDVRP problem) {
+        if (this.updated) {
+            this.evaluate(problem);
+        }
+        return this.feasible;
+    }
+
+    public void setUpdated() {
+        this.updated = true;
+        this.changed = true;
+    }
+
+    /**
+     * Whether the cached fitness is out of date.
+     */
+    public boolean needsEvaluation() {
+        return updated;
+    }
+
+    /**
+     * Whether the routes changed since the last call, whether or not the chromosome has been evaluated since.
+     */
+    public boolean takeChanged() {
+        boolean changed = this.changed;
+        this.changed = false;
+        return changed;
+    }
+
+    /**
+     * Takes the fitness of an identical solution, known by its hash, instead of evaluating this one. The depots
+     * keep their stale fitness until asked for it.
+     */
+    public void setEvaluation(double fitness, boolean feasible) {
+        this.fitness = fitness;
+        this.feasible = feasible;
+        this.updated = false;
+        this.borrowed = true;
+    }
+
+    /**
+     * Replaces fitness and feasibility taken by setEvaluation() with this chromosome's own, as a hash
+     * collision would have handed it another solution's.
+     */
+    public void confirmEvaluation(MDVRP problem) {
+        if (this.borrowed) {
+            this.evaluate(problem);
+        }
+    }
+
+    /**
+     * Hash of the solution, equal for chromosomes with the same routes in any vehicle order or direction.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    void addHash(long delta) {
+        this.hash += delta;
+    }
+
+    private void evaluate(MDVRP problem) {
+        double fitness = 0.0;
+        boolean feasible = true;
+
         for (Depot depot : this.depots) {
-            if (!depot.isFeasible(problem)) {
-                return false;
+            fitness += depot.getFitness(problem);
+            feasible = feasible && depot.isFeasible(problem);
+        }
+
+        this.fitness = fitness;
+        this.feasible = feasible;
+        this.updated = false;
+        this.borrowed = false;
+    }
+
+    /**
+     * Broken pairs distance to another chromosome: the number of customers whose successor here is neither
+     * their successor nor their predecessor there. 0 for the same routes, whatever their order.
+     */
+    public int brokenPairs(Chromosome other) {
+        int broken = 0;
+
+        for (int c = 0; c < this.numCustomers; c++) {
+            int next = this.neighbour(c, 1);
+
+            if (next != other.neighbour(c, 1) && next != other.neighbour(c, -1)) {
+                broken++;
             }
         }
-        return true;
+
+        return broken;
+    }
+
+    /**
+     * The customer step positions along the customer's route, or its depot d as -(d + 1) past either end.
+     */
+    private int neighbour(int customer, int step) {
+        int depot = this.customerDepot[customer];
+
+        if (depot < 0) {
+            return Integer.MIN_VALUE;
+        }
+
+        Vehicle vehicle = this.depots.get(depot).getVehicle(this.customerVehicle[customer]);
+        int position = this.customerPosition[customer] + step;
+
+        return position >= 0 && position < vehicle.getNumCustomers() ? vehicle.getCustomer(position) : -(depot + 1);
     }
 
     public static int compare(Chromosome c1, Chromosome c2, MDVRP problem) {
-        if (c1.getFitness(problem) == c2.getFitness(problem)) {
+        double fitness1 = c1.getFitness(problem);
+        double fitness2 = c2.getFitness(problem);
+
+        if (fitness1 == fitness2) {
             return 0;
-        } else if (c1.getFitness(problem) > c2.getFitness(problem)) {
+        } else if (fitness1 > fitness2) {
             return -1;
         }
         return 1;
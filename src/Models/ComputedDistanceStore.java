@@ -0,0 +1,98 @@
+package Models;
+
+import Utilities.Utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes distances on demand from the coordinates, keeping the most recently used rows in a small LRU cache.
+ * The insertion and neighbourhood loops look up many distances from the same node in a row, so a row is only
+ * computed on the second consecutive lookup from its node, and scattered lookups are computed directly.
+ * Each thread has its own cache, which avoids locking on every lookup; the memory held is cachedRows * numNodes
+ * floats per thread.
+ */
+public class ComputedDistanceStore implements DistanceStore {
+
+    public static final int DEFAULT_CACHED_ROWS = 64;
+
+    private final double[] x;
+    private final double[] y;
+    private final int cachedRows;
+    private final ThreadLocal<RowCache> caches;
+
+    public ComputedDistanceStore(double[] x, double[] y, int cachedRows) {
+        this.x = x.clone();
+        this.y = y.clone();
+        this.cachedRows = cachedRows;
+        this.caches = ThreadLocal.withInitial(RowCache::new);
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (this.cachedRows == 0) {
+            return compute(i, j);
+        }
+
+        return this.caches.get().lookup(i, j);
+    }
+
+    @Override
+    public int getNumNodes() {
+        return this.x.length;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 2L * this.x.length * Double.BYTES;
+    }
+
+    // Rounded to float like the cached rows, so a distance is the same whether or not its row is cached
+    private float compute(int i, int j) {
+        return (float) Utils.EuclideanDist(this.x[i], this.y[i], this.x[j], this.y[j]);
+    }
+
+    private float[] computeRow(int i) {
+        float[] row = new float[this.x.length];
+
+        for (int j = 0; j < row.length; j++) {
+            row[j] = compute(i, j);
+        }
+        return row;
+    }
+
+    private class RowCache extends LinkedHashMap<Integer, float[]> {
+
+        // The last row is checked first, which skips the map for consecutive lookups from the same node
+        private int lastIndex = -1;
+        private float[] lastRow;
+        private int lastMiss = -1;
+
+        RowCache() {
+            super(16, 0.75f, true);
+        }
+
+        double lookup(int i, int j) {
+            if (i != this.lastIndex) {
+                float[] row = get(i);
+
+                if (row == null) {
+                    if (i != this.lastMiss) {
+                        this.lastMiss = i;
+                        return ComputedDistanceStore.this.compute(i, j);
+                    }
+                    row = computeRow(i);
+                    put(i, row);
+                }
+                this.lastIndex = i;
+                this.lastRow = row;
+            }
+            return this.lastRow[j];
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+            return size() > cachedRows;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package Models;
 
-import Utilities.Parameters;
 import org.javatuples.Triplet;
 
 import java.io.Serializable;
@@ -10,30 +9,82 @@ import java.util.*;
 public class Depot implements Serializable {
 
     private final int id;
-    private ArrayList<Customer> customers;
+    // Customer ids assigned to this depot by the initial clustering, in scheduling order
+    private int[] customers;
     private ArrayList<Vehicle> vehicles;
     private final double maxLoad;
     private final double maxLength;
     private final int maxVehicles;
-    private final Random random = new Random();
     private boolean updated;
     private double fitness;
+    // Sum of the route hashes of the vehicles
+    private long hash;
+    // Chromosome whose cached fitness must be invalidated when this depot changes
+    private final Chromosome owner;
 
-    public Depot(int id, ArrayList<Customer> customers, double maxLoad, int maxVehicles, MDVRP problem) {
+    public Depot(int id, int[] customers, double maxLoad, int maxVehicles, MDVRP problem, Chromosome owner) {
         this.id = id;
+        this.owner = owner;
         this.customers = customers;
         this.vehicles = new ArrayList<>();
         this.maxLoad = maxLoad;
-        this.maxLength = problem.getMaxLength();
+        this.maxLength = problem.getMaxLength(id);
         this.maxVehicles = maxVehicles;
         this.updated = true;
 
         initVehicles(problem);
     }
 
+    /**
+     * Copies the route state of another depot. Customers are immutable and shared, and the initial
+     * customer list is only read by scheduleRoutes(), so only the vehicles are copied.
+     */
+    public Depot(Depot other, Chromosome owner) {
+        this.id = other.id;
+        this.owner = owner;
+        this.customers = other.customers;
+        this.vehicles = new ArrayList<>(other.vehicles.size());
+        this.maxLoad = other.maxLoad;
+        this.maxLength = other.maxLength;
+        this.maxVehicles = other.maxVehicles;
+        this.updated = other.updated;
+        this.fitness = other.fitness;
+        this.hash = other.hash;
+
+        for (Vehicle vehicle : other.vehicles) {
+            this.vehicles.add(new Vehicle(vehicle, this));
+        }
+    }
+
+    /**
+     * Makes this depot a copy of the same depot of another chromosome, as the copy constructor does, but
+     * refilling its own vehicles rather than creating new ones.
+     */
+    void copyFrom(Depot other) {
+        this.customers = other.customers;
+        this.updated = other.updated;
+        this.fitness = other.fitness;
+        this.hash = other.hash;
+
+        for (int i = 0; i < this.vehicles.size(); i++) {
+            this.vehicles.get(i).copyFrom(other.vehicles.get(i));
+        }
+    }
+
+    /**
+     * Empties the routes and takes a new initial customer list for scheduleRoutes().
+     */
+    void reset(int[] customers) {
+        this.customers = customers;
+
+        for (Vehicle vehicle : this.vehicles) {
+            vehicle.clearRoute();
+        }
+    }
+
     private void initVehicles(MDVRP problem) {
         for (int i = 0; i < maxVehicles; i++) {
-            this.vehicles.add(new Vehicle(this.maxLoad, this.maxLength, this));
+            this.vehicles.add(new Vehicle(this.maxLoad, this.maxLength, problem.getDemands(), this, i));
         }
     }
 
@@ -55,6 +106,30 @@ public class Depot implements Serializable {
 
     public void setUpdated() {
         this.updated = true;
+        this.owner.setUpdated();
+    }
+
+    /**
+     * Whether a route has changed since the fitness was last computed.
+     */
+    public boolean isUpdated() {
+        return updated;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    void addHash(long delta) {
+        this.hash += delta;
+        this.owner.addHash(delta);
+    }
+
+    /**
+     * Records where a customer now sits in this depot, or that it has been removed when vehicle is -1.
+     */
+    public void setLocation(int customer, int vehicle, int position) {
+        this.owner.setLocation(customer, vehicle < 0 ? -1 : this.id, vehicle, position);
     }
 
     public Vehicle getVehicle(int i) {
@@ -65,32 +140,30 @@ public class Depot implements Serializable {
         return this.vehicles;
     }
 
-    public Customer getCustomerById(int id) {
-        for (Vehicle vehicle : this.vehicles) {
-            Customer customer = vehicle.getCustomerById(id);
-            if (customer != null) {
-                return customer;
-            }
+    /**
+     * Removes a customer using the owning chromosome's location index. Only valid on a depot obtained
+     * through Chromosome.getDepot(), since a shared depot's owner may have moved on.
+     */
+    public boolean removeCustomer(int c) {
+        if (this.owner.getDepotOf(c) != this.id) {
+            return false;
         }
-        return null;
-    }
 
-    public boolean removeCustomer(Customer c) {
-        for (Vehicle vehicle : this.vehicles) {
-            if (vehicle.removeCustomer(c)) {
-                return true;
-            }
-        }
-        return false;
+        this.vehicles.get(this.owner.getVehicleOf(c)).removeCustomerByIndex(this.owner.getPositionOf(c));
+        return true;
     }
 
-    public void bestCostInsertions(ArrayList<Customer> customers, MDVRP problem) {
-        for (Customer c : customers) {
+    public void bestCostInsertions(int[] customers, MDVRP problem, Random random) {
+        for (int c : customers) {
             ArrayList<Triplet<Integer, Integer, Double>> feasibleInsertion = new ArrayList<>();
             ArrayList<Triplet<Integer, Integer, Double>> allInsertions = new ArrayList<>();
+            ArrayList<Triplet<Integer, Double, Boolean>> vehicleInsertions = this.bestInsertions(c, problem);
 
             for (int i = 0; i < this.vehicles.size(); i++) {
-                Triplet<Integer, Double, Boolean> currCost = this.bestInsertCustomer(i, c, problem);
+                Triplet<Integer, Double, Boolean> currCost = vehicleInsertions.get(i);
+                if (currCost == null) {
+                    continue;
+                }
                 if (currCost.getValue2()) {
                     feasibleInsertion.add(Triplet.with(currCost.getValue0(), i, currCost.getValue1()));
                 }
@@ -98,7 +171,7 @@ public class Depot implements Serializable {
             }
 
             Triplet<Integer, Integer, Double> insertion;
-            if (Math.random() <= Parameters.INSERT_BEST) {
+            if (random.nextDouble() <= problem.getConfig().getInsertBest()) {
                 if (feasibleInsertion.size() == 0) {
                     allInsertions.sort(Comparator.comparing(Triplet::getValue2));
                     insertion = allInsertions.get(0);
@@ -116,13 +189,91 @@ public class Depot implements Serializable {
         }
     }
 
-    public Triplet<Integer, Double, Boolean> bestInsertCustomer(int i, Customer c, MDVRP problem) {
+    public Triplet<Integer, Double, Boolean> bestInsertCustomer(int i, int c, MDVRP problem) {
 
         return this.vehicles.get(i).bestInsertion(c, problem);
 
     }
 
-    public void customerReroute(MDVRP problem) {
+    /**
+     * Best insertion of customer c into each vehicle, as Triplet<index, costIncrease, feasible>. With
+     * granular neighbours configured, only positions next to one of c's nearest neighbours are tried and
+     * vehicles without such a position get null. If no vehicle has one, every position is tried.
+     */
+    public ArrayList<Triplet<Integer, Double, Boolean>> bestInsertions(int c, MDVRP problem) {
+        ArrayList<Triplet<Integer, Double, Boolean>> insertions = new ArrayList<>(this.vehicles.size());
+
+        if (problem.getConfig().getGranularNeighbours() > 0 && this.granularInsertions(c, problem, insertions)) {
+            return insertions;
+        }
+
+        insertions.clear();
+
+        for (int i = 0; i < this.vehicles.size(); i++) {
+            insertions.add(this.bestInsertCustomer(i, c, problem));
+        }
+
+        return insertions;
+    }
+
+    private boolean granularInsertions(int c, MDVRP problem, ArrayList<Triplet<Integer, Double, Boolean>> insertions) {
+        int[] bestIndex = new int[this.vehicles.size()];
+        double[] bestCost = new double[this.vehicles.size()];
+        boolean[] bestFeasible = new boolean[this.vehicles.size()];
+        boolean found = false;
+
+        Arrays.fill(bestIndex, -1);
+
+        for (int node : problem.getNeighbours(c)) {
+            if (node < problem.getNumDepots()) {
+                if (node != this.id) {
+                    continue;
+                }
+
+                // Next to the depot: the start and end of every route
+                for (int v = 0; v < this.vehicles.size(); v++) {
+                    this.considerInsertion(c, v, 0, problem, bestIndex, bestCost, bestFeasible);
+                    this.considerInsertion(c, v, this.vehicles.get(v).getNumCustomers(), problem, bestIndex, bestCost, bestFeasible);
+                }
+                found = true;
+            } else {
+                int neighbour = node - problem.getNumDepots();
+
+                if (this.owner.getDepotOf(neighbour) != this.id) {
+                    continue;
+                }
+
+                int v = this.owner.getVehicleOf(neighbour);
+                int position = this.owner.getPositionOf(neighbour);
+
+                this.considerInsertion(c, v, position, problem, bestIndex, bestCost, bestFeasible);
+                this.considerInsertion(c, v, position + 1, problem, bestIndex, bestCost, bestFeasible);
+                found = true;
+            }
+        }
+
+        for (int v = 0; v < this.vehicles.size(); v++) {
+            insertions.add(bestIndex[v] < 0 ? null : Triplet.with(bestIndex[v], bestCost[v], bestFeasible[v]));
+        }
+
+        return found;
+    }
+
+    // Keeps the insertion at position in vehicle v if it beats the best so far: feasible first, then cheapest
+    private void considerInsertion(int c, int v, int position, MDVRP problem, int[] bestIndex, double[] bestCost, boolean[] bestFeasible) {
+        Vehicle vehicle = this.vehicles.get(v);
+
+        double cost = vehicle.insertionDelta(c, position, problem);
+        boolean feasible = vehicle.testDemandIncrement(problem.getDemand(c)) && vehicle.testLengthIncrement(c, position, problem);
+
+        if (bestIndex[v] < 0 || (feasible && !bestFeasible[v]) || (feasible == bestFeasible[v] && cost < bestCost[v])) {
+            bestIndex[v] = position;
+            bestCost[v] = cost;
+            bestFeasible[v] = feasible;
+        }
+    }
+
+    public void customerReroute(MDVRP problem, Random random) {
         Vehicle vehicle = this.vehicles.get(random.nextInt(this.vehicles.size()));
 
         if (vehicle.getNumCustomers() == 0) {
@@ -130,17 +281,25 @@ public class Depot implements Serializable {
         }
 
         int customerIndex = random.nextInt(vehicle.getNumCustomers());
-        Customer c = vehicle.getCustomer(customerIndex);
-        vehicle.removeCustomer(c);
+        int c = vehicle.removeCustomerByIndex(customerIndex);
 
-        int bestVehicle = 0;
-        Triplet<Integer, Double, Boolean> bestInsert = this.bestInsertCustomer(0, c, problem);
+        ArrayList<Triplet<Integer, Double, Boolean>> insertions = this.bestInsertions(c, problem);
 
-        for (int i = 1; i < this.vehicles.size(); i++) {
+        int bestVehicle = -1;
+        Triplet<Integer, Double, Boolean> bestInsert = null;
+
+        for (int i = 0; i < this.vehicles.size(); i++) {
             // Triplet<index, costReduction, feasible>
-            Triplet<Integer, Double, Boolean> currInsert = this.bestInsertCustomer(i, c, problem);
+            Triplet<Integer, Double, Boolean> currInsert = insertions.get(i);
+
+            if (currInsert == null) {
+                continue;
+            }
 
-            if (currInsert.getValue2()) {
+            if (bestInsert == null) {
+                bestInsert = currInsert;
+                bestVehicle = i;
+            } else if (currInsert.getValue2()) {
                 if (bestInsert.getValue2() && currInsert.getValue1() < bestInsert.getValue1()) {
                     bestInsert = currInsert;
                     bestVehicle = i;
@@ -161,25 +320,28 @@ public class Depot implements Serializable {
         this.vehicles.get(bestVehicle).insertCustomerByIndex(bestInsert.getValue0(), c);
     }
 
-    public void swap() {
+    public void swap(Random random) {
         Vehicle v1 = this.vehicles.get(random.nextInt(this.vehicles.size()));
         Vehicle v2 = this.vehicles.get(random.nextInt(this.vehicles.size()));
 
         if (v1.getNumCustomers() > 0 && v2.getNumCustomers() > 0) {
-            Customer c1 = v1.getCustomer(random.nextInt(v1.getNumCustomers()));
-            Customer c2 = v2.getCustomer(random.nextInt(v2.getNumCustomers()));
+            int i1 = random.nextInt(v1.getNumCustomers());
+            int i2 = random.nextInt(v2.getNumCustomers());
 
-            v1.setCustomer(c2, c1);
-            v2.setCustomer(c1, c2);
+            int c1 = v1.getCustomer(i1);
+            int c2 = v2.getCustomer(i2);
+
+            v1.setCustomerByIndex(i1, c2);
+            v2.setCustomerByIndex(i2, c1);
         }
 
     }
 
-    public void reverse() {
+    public void reverse(Random random) {
         Vehicle vehicle = this.vehicles.get(random.nextInt(this.vehicles.size()));
 
         if (vehicle.getNumCustomers() > 0) {
-            vehicle.reverse();
+            vehicle.reverse(random);
         }
     }
 
@@ -192,18 +354,202 @@ public class Depot implements Serializable {
         return true;
     }
 
+    /**
+     * The customers of all routes in vehicle order, as one giant tour.
+     */
+    public int[] getTour() {
+        int[] tour = new int[this.getNumCustomers()];
+        int n = 0;
+
+        for (Vehicle vehicle : this.vehicles) {
+            for (int i = 0; i < vehicle.getNumCustomers(); i++) {
+                tour[n++] = vehicle.getCustomer(i);
+            }
+        }
+
+        return tour;
+    }
+
+    /**
+     * Cuts the giant tour into at most maxVehicles routes of least total length that keep to the load and length
+     * limits, keeping the order of the tour (bounded fleet Split, one linear pass per vehicle). Returns false and
+     * leaves the routes as they are if the tour has no such split.
+     */
+    public boolean splitRoutes(int[] tour, MDVRP problem) {
+        int n = tour.length;
+
+        // Over tour positions 1..n: distance along the tour from the first customer, load of the first i
+        // customers, and distance from the depot
+        double[] along = new double[n + 1];
+        double[] load = new double[n + 1];
+        double[] depot = new double[n + 1];
+
+        for (int i = 1; i <= n; i++) {
+            along[i] = i == 1 ? 0 : along[i - 1] + problem.getC2CDistance(tour[i - 2], tour[i - 1]);
+            load[i] = load[i - 1] + problem.getDemand(tour[i - 1]);
+            depot[i] = problem.getD2CDistance(this.id, tour[i - 1]);
+        }
+
+        // cost[k][j]: least length of the first j customers in k routes, pred[k][j] where the last route starts
+        double[][] cost = new double[this.maxVehicles + 1][n + 1];
+        int[][] pred = new int[this.maxVehicles + 1][n + 1];
+        int[] window = new int[n + 1];
+
+        for (double[] row : cost) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        cost[0][0] = 0;
+
+        // An empty tour is split into no routes
+        int best = n == 0 ? 0 : -1;
+
+        for (int k = 1; k <= this.maxVehicles; k++) {
+            double[] previous = cost[k - 1];
+            int head = 0, tail = 0;
+
+            for (int j = 1; j <= n; j++) {
+                // Route i+1..j costs previous[i] + depot[i+1] - along[i+1] + along[j] + depot[j], so the best
+                // predecessor is a window minimum of the part depending on i. With triangle inequality distances
+                // a route that breaks a limit still breaks it when extended at either end, so the window slides.
+                int i = j - 1;
+
+                if (previous[i] < Double.POSITIVE_INFINITY) {
+                    while (tail > head && this.splitValue(window[tail - 1], previous, along, depot)
+                            >= this.splitValue(i, previous, along, depot)) {
+                        tail--;
+                    }
+                    window[tail++] = i;
+                }
+
+                while (tail > head && !this.fitsRoute(window[head], j, along, load, depot)) {
+                    head++;
+                }
+
+                if (tail > head) {
+                    pred[k][j] = window[head];
+                    cost[k][j] = this.splitValue(window[head], previous, along, depot) + along[j] + depot[j];
+                }
+            }
+
+            if (cost[k][n] < Double.POSITIVE_INFINITY && (best < 0 || cost[k][n] < cost[best][n])) {
+                best = k;
+            }
+        }
+
+        if (best < 0) {
+            return false;
+        }
+
+        this.assignRoutes(tour, pred, best);
+
+        return true;
+    }
+
+    /**
+     * Cuts the giant tour into at most maxVehicles routes of least penalised fitness, for tours that splitRoutes
+     * cannot split within the limits. Takes quadratic time in the length of the tour per vehicle.
+     */
+    public void splitRoutesPenalised(int[] tour, MDVRP problem) {
+        int n = tour.length;
+        double[] along = new double[n + 1];
+        double[] load = new double[n + 1];
+        double[] depot = new double[n + 1];
+
+        for (int i = 1; i <= n; i++) {
+            along[i] = i == 1 ? 0 : along[i - 1] + problem.getC2CDistance(tour[i - 2], tour[i - 1]);
+            load[i] = load[i - 1] + problem.getDemand(tour[i - 1]);
+            depot[i] = problem.getD2CDistance(this.id, tour[i - 1]);
+        }
+
+        // All vehicles of a depot have the same limits, so any of them prices a route
+        Vehicle pricing = this.vehicles.get(0);
+        double[][] cost = new double[this.maxVehicles + 1][n + 1];
+        int[][] pred = new int[this.maxVehicles + 1][n + 1];
+
+        for (double[] row : cost) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        cost[0][0] = 0;
+
+        int best = 0;
+
+        for (int k = 1; k <= this.maxVehicles; k++) {
+            for (int j = 1; j <= n; j++) {
+                for (int i = 0; i < j; i++) {
+                    if (cost[k - 1][i] == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+
+                    double length = depot[i + 1] + along[j] - along[i + 1] + depot[j];
+                    double value = cost[k - 1][i] + pricing.fitnessOf(length, load[j] - load[i], problem);
+
+                    if (value < cost[k][j]) {
+                        cost[k][j] = value;
+                        pred[k][j] = i;
+                    }
+                }
+            }
+
+            if (best == 0 || cost[k][n] < cost[best][n]) {
+                best = k;
+            }
+        }
+
+        this.assignRoutes(tour, pred, n == 0 ? 0 : best);
+    }
+
+    // Replaces the routes by the split of the tour ending in route k, following pred back to the first route
+    private void assignRoutes(int[] tour, int[][] pred, int k) {
+        for (Vehicle vehicle : this.vehicles) {
+            vehicle.clearRoute();
+        }
+
+        for (int j = tour.length; k > 0; j = pred[k][j], k--) {
+            Vehicle vehicle = this.vehicles.get(k - 1);
+
+            for (int i = pred[k][j]; i < j; i++) {
+                vehicle.forceInsertCustomer(tour[i]);
+            }
+        }
+    }
+
+    // The part of the cost of a route starting after tour position i that does not depend on where it ends
+    private double splitValue(int i, double[] previous, double[] along, double[] depot) {
+        return previous[i] + depot[i + 1] - along[i + 1];
+    }
+
+    // Whether customers i+1..j of the tour, in Split's 1-based positions, make a route within both limits
+    private boolean fitsRoute(int i, int j, double[] along, double[] load, double[] depot) {
+        if (load[j] - load[i] > this.maxLoad) {
+            return false;
+        }
+
+        return this.maxLength == 0 || depot[i + 1] + along[j] - along[i + 1] + depot[j] <= this.maxLength;
+    }
+
+    /**
+     * Builds routes from the customers given to this depot by the initial clustering, by Split if so configured
+     * (penalised if the customers do not fit the vehicles), and otherwise by filling the vehicles in turn.
+     */
     public void scheduleRoutes(MDVRP problem) {
+        if (problem.getConfig().isSplitInitial()) {
+            if (!this.splitRoutes(this.customers, problem)) {
+                this.splitRoutesPenalised(this.customers, problem);
+            }
+            return;
+        }
+
         for (Vehicle vehicle : vehicles) {
             vehicle.clearRoute();
         }
 
         int vehicleNum = 0;
 
-        for (Customer customer : customers) {
+        for (int customer : customers) {
 
             Vehicle currentVehicle = vehicles.get(vehicleNum);
 
-            if (!currentVehicle.insertCustomerIfFeasible(customer, problem)) {
+            if (!currentVehicle.insertCustomerIfFeasible(customer)) {
                 if (!(vehicleNum >= vehicles.size() - 1)) {
                     vehicleNum++;
                 }
@@ -222,25 +568,15 @@ public class Depot implements Serializable {
 
             Vehicle nextVehicle = this.vehicles.get(i + 1);
 
-            Customer lastCustomer = currentVehicle.getLastCustomer();
+            int lastCustomer = currentVehicle.getLastCustomer();
 
-            double lastDemand = lastCustomer.getDemand();
+            double lastDemand = problem.getDemand(lastCustomer);
 
             if (nextVehicle.testDemandIncrement(lastDemand) && nextVehicle.getNumCustomers() > 0) {
                 if (nextVehicle.testLengthIncrement(lastCustomer, 0, problem)) {
-                    double deltaCost = 0.0;
-                    int secondLastCustomerId = currentVehicle.getSecondLastCustomer().getId();
-                    int lastCustomerId = lastCustomer.getId();
-                    int firstCustomerId = nextVehicle.getFirstCustomer().getId();
-
-                    // Remove second last to last customer
-                    deltaCost -= problem.getC2CDistance(secondLastCustomerId, lastCustomerId);
-                    // Add second last to depot
-                    deltaCost += problem.getD2CDistance(this.getId(), secondLastCustomerId);
-                    // Remove depot to first customer
-                    deltaCost -= problem.getD2CDistance(this.getId(), firstCustomerId);
-                    // Add last customer from route i to first customer route i+1
-                    deltaCost += problem.getC2CDistance(lastCustomerId, firstCustomerId);
+                    // Move the last customer of route i to the front of route i+1
+                    double deltaCost = currentVehicle.removalDelta(currentVehicle.getNumCustomers() - 1, problem);
+                    deltaCost += nextVehicle.insertionDelta(lastCustomer, 0, problem);
 
                     if (deltaCost < 0) {
                         currentVehicle.removeLastCustomer();
@@ -0,0 +1,83 @@
+package Models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Symmetric distances between the nodes of a problem instance. Nodes are numbered as in MDVRP: depots first,
+ * then customers offset by the number of depots.
+ */
+public interface DistanceStore {
+
+    // Largest instances, in nodes, for which each store is picked automatically
+    int MATRIX_LIMIT = 3000;
+    int TRIANGULAR_LIMIT = 8000;
+    int TRIANGULAR_FLOAT_LIMIT = 16000;
+    int MAPPED_LIMIT = 40000;
+
+    double get(int i, int j);
+
+    int getNumNodes();
+
+    /**
+     * Bytes held by the store, on or off the heap.
+     */
+    long sizeInBytes();
+
+    /**
+     * Builds a store over the given node coordinates. The type is one of "matrix", "triangular",
+     * "triangular-float", "mapped", "computed", or "auto" to pick by instance size.
+     */
+    static DistanceStore create(double[] x, double[] y, String type) {
+        switch (resolveType(type, x.length)) {
+            case "matrix":
+                return new MatrixDistanceStore(x, y);
+            case "triangular":
+                return new TriangularDistanceStore(x, y, false);
+            case "triangular-float":
+                return new TriangularDistanceStore(x, y, true);
+            case "mapped":
+                try {
+                    return MappedDistanceStore.create(x, y);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            case "computed":
+                return new ComputedDistanceStore(x, y, ComputedDistanceStore.DEFAULT_CACHED_ROWS);
+            default:
+                throw new IllegalArgumentException("Unknown distance store: " + type);
+        }
+    }
+
+    /**
+     * The store type to use for an instance of the given size, resolving "auto".
+     */
+    static String resolveType(String type, int numNodes) {
+        if (!"auto".equals(type)) {
+            return type;
+        }
+
+        if (numNodes <= MATRIX_LIMIT) {
+            return "matrix";
+        } else if (numNodes <= TRIANGULAR_LIMIT) {
+            return "triangular";
+        } else if (numNodes <= TRIANGULAR_FLOAT_LIMIT) {
+            return "triangular-float";
+        } else if (numNodes <= MAPPED_LIMIT) {
+            return "mapped";
+        }
+        return "computed";
+    }
+
+    /**
+     * Position of the pair (i, j), i != j, in a packed lower triangle without the diagonal.
+     */
+    static long triangularIndex(int i, int j) {
+        if (i < j) {
+            int tmp = i;
+            i = j;
+            j = tmp;
+        }
+        return (long) i * (i - 1) / 2 + j;
+    }
+}
@@ -0,0 +1,264 @@
+package Models;
+
+/**
+ * Education of offspring: first improvement local search over the routes of each depot, with intra-route
+ * 2-opt and Or-opt and inter-route relocate and exchange between the vehicles of the depot. Moves are valued
+ * by their change in penalised fitness, so a move that repairs an overloaded or overlong route counts as an
+ * improvement too.
+ *
+ * A customer none of whose moves improve gets its don't-look bit set and is skipped until a move changes one
+ * of the routes it is on. Depots are searched while still shared and only copied once a move is made in them.
+ * The search ends at a local optimum or at the deadline, whichever comes first.
+ *
+ * An instance keeps its buffers from one chromosome to the next, so it is meant to be reused by one thread.
+ */
+public class LocalSearch {
+
+    // Smallest fitness change that counts as an improvement, so rounding cannot make the search cycle
+    private static final double EPSILON = 1e-9;
+    // Longest segment moved by Or-opt
+    private static final int MAX_SEGMENT = 3;
+
+    private final MDVRP problem;
+    private final boolean[] dontLook;
+    // Customers of the depot being searched, in the first entries
+    private final int[] customers;
+    private Chromosome chromosome;
+    private Depot depot;
+    private int depotIndex;
+    private boolean owned;
+    private int moves;
+
+    public LocalSearch(MDVRP problem) {
+        this.problem = problem;
+        this.dontLook = new boolean[problem.getNumCustomers()];
+        this.customers = new int[problem.getNumCustomers()];
+    }
+
+    /**
+     * Improves the chromosome until no move helps or System.nanoTime() passes the deadline, and returns the
+     * number of moves made.
+     */
+    public int educate(Chromosome chromosome, long deadline) {
+        this.chromosome = chromosome;
+        this.moves = 0;
+
+        for (int d = 0; d < chromosome.getDepots().size(); d++) {
+            this.depot = chromosome.getDepots().get(d);
+            this.depotIndex = d;
+            this.owned = false;
+
+            // Moves stay within the depot, so its customers are the same throughout
+            int n = 0;
+
+            for (Vehicle vehicle : this.depot.getVehicles()) {
+                for (int i = 0; i < vehicle.getNumCustomers(); i++) {
+                    this.customers[n++] = vehicle.getCustomer(i);
+                    this.dontLook[vehicle.getCustomer(i)] = false;
+                }
+            }
+
+            boolean improved = true;
+
+            while (improved) {
+                improved = false;
+
+                for (int k = 0; k < n; k++) {
+                    int c = this.customers[k];
+
+                    if (this.dontLook[c]) {
+                        continue;
+                    }
+                    if (System.nanoTime() > deadline) {
+                        return this.moves;
+                    }
+
+                    if (this.improve(c)) {
+                        improved = true;
+                    } else {
+                        this.dontLook[c] = true;
+                    }
+                }
+            }
+        }
+
+        return this.moves;
+    }
+
+    private boolean improve(int c) {
+        int v = this.chromosome.getVehicleOf(c);
+        int i = this.chromosome.getPositionOf(c);
+
+        return this.twoOpt(v, i) || this.orOpt(v, i) || this.relocate(v, i) || this.exchange(v, i);
+    }
+
+    /**
+     * Reverses a segment of the route starting or ending at position i.
+     */
+    private boolean twoOpt(int v, int i) {
+        Vehicle route = this.depot.getVehicle(v);
+        int n = route.getNumCustomers();
+        double cost = route.getRouteCost(this.problem);
+        double load = route.getCurrentLoad();
+        double current = route.fitnessOf(cost, load, this.problem);
+
+        for (int to = i + 2; to <= n; to++) {
+            double delta = route.reversalDelta(i, to, this.problem);
+
+            if (route.fitnessOf(cost + delta, load, this.problem) - current < -EPSILON) {
+                this.own().getVehicle(v).reverseSegment(i, to);
+                return this.moved(v);
+            }
+        }
+
+        for (int from = 0; from < i; from++) {
+            double delta = route.reversalDelta(from, i + 1, this.problem);
+
+            if (route.fitnessOf(cost + delta, load, this.problem) - current < -EPSILON) {
+                this.own().getVehicle(v).reverseSegment(from, i + 1);
+                return this.moved(v);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the segment of up to MAX_SEGMENT customers starting at position i elsewhere in the route, in
+     * either direction.
+     */
+    private boolean orOpt(int v, int i) {
+        Vehicle route = this.depot.getVehicle(v);
+        int n = route.getNumCustomers();
+        double cost = route.getRouteCost(this.problem);
+        double load = route.getCurrentLoad();
+        double current = route.fitnessOf(cost, load, this.problem);
+
+        for (int length = 1; length <= MAX_SEGMENT && i + length <= n; length++) {
+            for (int gap = 0; gap <= n; gap++) {
+                if (gap >= i && gap <= i + length) {
+                    continue;
+                }
+
+                for (int r = 0; r < (length == 1 ? 1 : 2); r++) {
+                    boolean reversed = r == 1;
+                    double delta = route.segmentMoveDelta(i, length, gap, reversed, this.problem);
+
+                    if (route.fitnessOf(cost + delta, load, this.problem) - current < -EPSILON) {
+                        this.own().getVehicle(v).moveSegment(i, length, gap, reversed);
+                        return this.moved(v);
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the customer at position i to any position in another vehicle of the depot.
+     */
+    private boolean relocate(int v, int i) {
+        Vehicle route = this.depot.getVehicle(v);
+        int c = route.getCustomer(i);
+        double demand = this.problem.getDemand(c);
+        double cost = route.getRouteCost(this.problem);
+        double load = route.getCurrentLoad();
+        double removal = route.fitnessOf(cost + route.removalDelta(i, this.problem), load - demand, this.problem)
+                - route.fitnessOf(cost, load, this.problem);
+
+        for (int w = 0; w < this.depot.getVehicles().size(); w++) {
+            if (w == v) {
+                continue;
+            }
+
+            Vehicle other = this.depot.getVehicle(w);
+            double otherCost = other.getRouteCost(this.problem);
+            double otherLoad = other.getCurrentLoad();
+            double otherCurrent = other.fitnessOf(otherCost, otherLoad, this.problem);
+
+            for (int gap = 0; gap <= other.getNumCustomers(); gap++) {
+                double delta = other.insertionDelta(c, gap, this.problem);
+                double insertion = other.fitnessOf(otherCost + delta, otherLoad + demand, this.problem) - otherCurrent;
+
+                if (removal + insertion < -EPSILON) {
+                    Depot depot = this.own();
+
+                    depot.getVehicle(v).removeCustomerByIndex(i);
+                    depot.getVehicle(w).insertCustomerByIndex(gap, c);
+                    this.wake(w);
+                    return this.moved(v);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Swaps the customer at position i with a customer in another vehicle of the depot.
+     */
+    private boolean exchange(int v, int i) {
+        Vehicle route = this.depot.getVehicle(v);
+        int c = route.getCustomer(i);
+        double demand = this.problem.getDemand(c);
+        double cost = route.getRouteCost(this.problem);
+        double load = route.getCurrentLoad();
+        double current = route.fitnessOf(cost, load, this.problem);
+
+        for (int w = 0; w < this.depot.getVehicles().size(); w++) {
+            if (w == v) {
+                continue;
+            }
+
+            Vehicle other = this.depot.getVehicle(w);
+            double otherCost = other.getRouteCost(this.problem);
+            double otherLoad = other.getCurrentLoad();
+            double otherCurrent = other.fitnessOf(otherCost, otherLoad, this.problem);
+
+            for (int j = 0; j < other.getNumCustomers(); j++) {
+                int c2 = other.getCustomer(j);
+                double shift = this.problem.getDemand(c2) - demand;
+                double change = route.fitnessOf(cost + route.replacementDelta(i, c2, this.problem), load + shift, this.problem)
+                        - current
+                        + other.fitnessOf(otherCost + other.replacementDelta(j, c, this.problem), otherLoad - shift, this.problem)
+                        - otherCurrent;
+
+                if (change < -EPSILON) {
+                    Depot depot = this.own();
+
+                    depot.getVehicle(v).setCustomerByIndex(i, c2);
+                    depot.getVehicle(w).setCustomerByIndex(j, c);
+                    this.wake(w);
+                    return this.moved(v);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // The depot being searched, copied out of sharing before the first move in it
+    private Depot own() {
+        if (!this.owned) {
+            this.depot = this.chromosome.getDepot(this.depotIndex);
+            this.owned = true;
+        }
+        return this.depot;
+    }
+
+    // Counts a move and wakes up the customers on the changed route
+    private boolean moved(int v) {
+        this.wake(v);
+        this.moves++;
+        return true;
+    }
+
+    private void wake(int v) {
+        Vehicle route = this.depot.getVehicle(v);
+
+        for (int i = 0; i < route.getNumCustomers(); i++) {
+            this.dontLook[route.getCustomer(i)] = false;
+        }
+    }
+}
@@ -1,57 +1,149 @@
 package Models;
 
+import Utilities.KdTree;
 import Utilities.Parameters;
+import Utilities.SolverConfig;
 import Utilities.Utils;
 import org.javatuples.Pair;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
-public class MDVRP implements Serializable {
+public class MDVRP {
 
-    private final Map<Integer, ArrayList<Double>> depots;
-    private final Map<Integer, ArrayList<Double>> customers;
+    private final SolverConfig config;
     private final ArrayList<ArrayList<Integer>> swappable;
-    private boolean isCalculated;
     private final int numDepots;
     private final int numCustomers;
     private final int maxVehicles;
-    private final double maxLoad;
-    private final double maxLength;
-    private final double[][] distances;
-    private final Random random = new Random();
+    // Maximum vehicle load and route length per depot, 0 for no length limit
+    private final double[] maxLoads;
+    private final double[] maxLengths;
+    // Coordinates per node, depots first and then customers offset by numDepots
+    private final double[] x;
+    private final double[] y;
+    private final DistanceStore distances;
+    private final KdTree depotIndex;
+    private final KdTree nodeIndex;
+    private final int[] closestDepots;
+    private final double[] demands;
+    // Per customer, the nearest depots and customers as distance matrix indices, closest first
+    private final int[][] neighbours;
+
+    /**
+     * The coordinate arrays hold the depots first and then the customers; the problem takes ownership of all arrays.
+     */
+    public MDVRP(
+            double[] x,
+            double[] y,
+            double[] demands,
+            double[] maxLoads,
+            double[] maxLengths,
+            int numDepots,
+            int maxVehicles) {
+        this(x, y, demands, maxLoads, maxLengths, numDepots, maxVehicles,
+                DistanceStore.create(x, y, Parameters.DISTANCE_STORE), null, null);
+    }
 
+    /**
+     * A problem whose distances, closest depots and swappable customers are already known, as when it is loaded
+     * from an instance cache. Swappable customers are given as consecutive (customer, closest depot, second
+     * closest depot) triples. Null closest depots means both are computed here. The problem gets the default
+     * configuration, see withConfig.
+     */
     public MDVRP(
-            Map<Integer, ArrayList<Double>> depots,
-            Map<Integer, ArrayList<Double>> customers,
+            double[] x,
+            double[] y,
+            double[] demands,
+            double[] maxLoads,
+            double[] maxLengths,
             int numDepots,
-            int numCustomers,
             int maxVehicles,
-            double maxLoad,
-            double maxLength) {
-        this.depots = depots;
-        this.customers = customers;
+            DistanceStore distances,
+            int[] closestDepots,
+            int[] swappable) {
+        this.config = SolverConfig.defaults();
+        this.x = x;
+        this.y = y;
+        this.demands = demands;
+        this.maxLoads = maxLoads;
+        this.maxLengths = maxLengths;
         this.numDepots = numDepots;
-        this.numCustomers = numCustomers;
+        this.numCustomers = demands.length;
         this.maxVehicles = maxVehicles;
-        this.maxLoad = maxLoad;
-        this.maxLength = maxLength;
-        this.distances = new double[numDepots + numCustomers][numDepots + numCustomers];
         this.swappable = new ArrayList<>();
-        this.isCalculated = false;
+        this.distances = distances;
+        this.depotIndex = new KdTree(Arrays.copyOf(x, numDepots), Arrays.copyOf(y, numDepots));
+        this.nodeIndex = new KdTree(x, y);
+
+        if (closestDepots == null) {
+            this.closestDepots = new int[this.numCustomers];
+            this.initDepotAssignment();
+        } else {
+            this.closestDepots = closestDepots;
+
+            for (int i = 0; i < swappable.length; i += 3) {
+                this.swappable.add(new ArrayList<>(Arrays.asList(swappable[i], swappable[i + 1], swappable[i + 2])));
+            }
+        }
+
+        this.neighbours = new int[this.numCustomers][];
 
-        this.initDistances();
+        if (this.config.getGranularNeighbours() > 0) {
+            this.initNeighbours(this.config.getGranularNeighbours());
+        }
     }
 
-    public Map<Integer, ArrayList<Double>> getDepots() {
-        return depots;
+    /**
+     * The same instance under another configuration, sharing coordinates, distances and spatial indexes.
+     * Swappable customers and neighbour lists are only recomputed if their settings differ.
+     */
+    private MDVRP(MDVRP source, SolverConfig config) {
+        this.config = config;
+        this.x = source.x;
+        this.y = source.y;
+        this.demands = source.demands;
+        this.maxLoads = source.maxLoads;
+        this.maxLengths = source.maxLengths;
+        this.numDepots = source.numDepots;
+        this.numCustomers = source.numCustomers;
+        this.maxVehicles = source.maxVehicles;
+        this.distances = source.distances;
+        this.depotIndex = source.depotIndex;
+        this.nodeIndex = source.nodeIndex;
+
+        if (config.getSwapBound() == source.config.getSwapBound()) {
+            this.closestDepots = source.closestDepots;
+            this.swappable = source.swappable;
+        } else {
+            this.closestDepots = new int[this.numCustomers];
+            this.swappable = new ArrayList<>();
+            this.initDepotAssignment();
+        }
+
+        if (config.getGranularNeighbours() == source.config.getGranularNeighbours()) {
+            this.neighbours = source.neighbours;
+        } else {
+            this.neighbours = new int[this.numCustomers][];
+
+            if (config.getGranularNeighbours() > 0) {
+                this.initNeighbours(config.getGranularNeighbours());
+            }
+        }
     }
 
-    public Map<Integer, ArrayList<Double>> getCustomers() {
-        return customers;
+    /**
+     * This problem under the given configuration; the problem itself if it already has it.
+     */
+    public MDVRP withConfig(SolverConfig config) {
+        return config == this.config ? this : new MDVRP(this, config);
+    }
+
+    public SolverConfig getConfig() {
+        return config;
     }
 
     public int getNumDepots() {
@@ -66,137 +158,112 @@ public class MDVRP implements Serializable {
         return maxVehicles;
     }
 
-    public double getMaxLoad() { return maxLoad; }
+    public double getMaxLoad(int depotId) {
+        return this.maxLoads[depotId];
+    }
 
-    public double getMaxLength() {
-        return maxLength;
+    public double getMaxLength(int depotId) {
+        return this.maxLengths[depotId];
     }
 
     public double getC2CDistance(int c1, int c2) {
-        return this.distances[c1 + numDepots][c2 + numDepots];
+        return this.distances.get(c1 + numDepots, c2 + numDepots);
     }
 
     public double getD2CDistance(int d1, int c2) {
-        return this.distances[d1][c2 + numDepots];
+        return this.distances.get(d1, c2 + numDepots);
     }
 
-    public ArrayList<Double> getCustomer(int customerId) {
-        return this.customers.get(customerId);
+    public double getDemand(int customerId) {
+        return this.demands[customerId];
     }
 
-    public ArrayList<Double> getDepot(int depotId) {
-        return this.customers.get(depotId);
+    /**
+     * Demand per customer id. The array is shared by all vehicles and must not be modified.
+     */
+    public double[] getDemands() {
+        return demands;
     }
 
-    public boolean isCalculated() {
-        return isCalculated;
+    /**
+     * The configured number of granular neighbours closest to a customer, closest first. Values below getNumDepots()
+     * are depot ids, larger values are customer ids offset by getNumDepots().
+     */
+    public int[] getNeighbours(int customerId) {
+        return this.neighbours[customerId];
     }
 
-    public void setCalculated() {
-        isCalculated = true;
+    public DistanceStore getDistances() {
+        return distances;
     }
 
-    private void initDistances() {
-        for (int depot1 = 0; depot1 < this.numDepots; depot1++) {
-
-            ArrayList<Double> depot1Loc = this.depots.get(depot1);
-            double x1 = depot1Loc.get(0);
-            double y1 = depot1Loc.get(1);
-
-            for (int depot2 = 0; depot2 <= depot1; depot2++) {
+    /**
+     * Spatial index over the depots, with the depot ids as point ids.
+     */
+    public KdTree getDepotIndex() {
+        return depotIndex;
+    }
 
-                if (depot1 == depot2) {
+    /**
+     * Spatial index over all nodes, with the distance store node numbering as point ids.
+     */
+    public KdTree getNodeIndex() {
+        return nodeIndex;
+    }
 
-                    this.distances[depot1][depot2] = 0;
+    public double getX(int node) {
+        return this.x[node];
+    }
 
-                } else {
+    public double getY(int node) {
+        return this.y[node];
+    }
 
-                    ArrayList<Double> depot2Loc = this.depots.get(depot2);
-                    double x2 = depot2Loc.get(0);
-                    double y2 = depot2Loc.get(1);
+    /**
+     * Assigns every customer its closest depot, and records it as swappable when its second closest depot is
+     * within the configured swap bound of the closest.
+     */
+    private void initDepotAssignment() {
+        for (int customer = 0; customer < this.numCustomers; customer++) {
+            int node = customer + this.numDepots;
+            int[] closest = this.depotIndex.nearest(this.x[node], this.y[node], 2, -1);
 
-                    double dist = Utils.EuclideanDist(x1, y1, x2, y2);
-                    this.distances[depot1][depot2] = dist;
-                    this.distances[depot2][depot1] = dist;
+            this.closestDepots[customer] = closest[0];
 
-                }
+            if (closest.length < 2) {
+                continue;
             }
 
-            for (int customer = 0; customer < numCustomers; customer++) {
-                ArrayList<Double> customerLoc = this.customers.get(customer);
-                double x2 = customerLoc.get(0);
-                double y2 = customerLoc.get(1);
+            double closestDistance = Utils.EuclideanDist(this.x[closest[0]], this.y[closest[0]], this.x[node], this.y[node]);
+            double secondDistance = Utils.EuclideanDist(this.x[closest[1]], this.y[closest[1]], this.x[node], this.y[node]);
+            double swapCriteria = (secondDistance - closestDistance) / closestDistance;
 
-                double dist = Utils.EuclideanDist(x1, y1, x2, y2);
-                this.distances[depot1][customer + numDepots] = dist;
-                this.distances[customer + numDepots][depot1] = dist;
+            if (swapCriteria <= this.config.getSwapBound()) {
+                this.swappable.add(new ArrayList<>(Arrays.asList(customer, closest[0], closest[1])));
             }
         }
+    }
 
-        for (int customer1 = 0; customer1 < numCustomers; customer1++) {
-
-            ArrayList<Double> customer1Loc = this.customers.get(customer1);
-            double x1 = customer1Loc.get(0);
-            double y1 = customer1Loc.get(1);
-
-            for(int customer2 = 0; customer2 <= customer1; customer2++) {
-
-                ArrayList<Double> customer2Loc = this.customers.get(customer2);
-                double x2 = customer2Loc.get(0);
-                double y2 = customer2Loc.get(1);
+    private void initNeighbours(int k) {
+        for (int customer = 0; customer < this.numCustomers; customer++) {
+            int node = customer + this.numDepots;
 
-                double dist = Utils.EuclideanDist(x1, y1, x2, y2);
-                this.distances[customer1 + numDepots][customer2 + numDepots] = dist;
-                this.distances[customer2 + numDepots][customer1 + numDepots] = dist;
-            }
+            this.neighbours[customer] = this.nodeIndex.nearest(this.x[node], this.y[node], k, node);
         }
     }
 
     public int getClosestDepot(int customerId) {
-        double minDistance = Double.POSITIVE_INFINITY;
-        int closestDepot = 0;
-
-
-        for (int depotId = 0; depotId < this.numDepots; depotId++ ) {
-
-            double currentDistance = getD2CDistance(depotId, customerId);
-
-            if (currentDistance < minDistance) {
-                minDistance = currentDistance;
-                closestDepot = depotId;
-            }
-        }
-
-        return closestDepot;
+        return this.closestDepots[customerId];
     }
 
-    public void getSecondClosestDepot(int customerId, int closestDepot) {
-        double minDistance = Double.POSITIVE_INFINITY;
-        int secondClosest = -1;
-
-        double closestDistance = getD2CDistance(closestDepot, customerId);
-
-        for (int depotId = 0; depotId < this.numDepots; depotId++ ) {
-            if (depotId == closestDepot) {
-                continue;
-            }
-
-            double currentDistance = getD2CDistance(depotId, customerId);
-
-            double swapCriteria = (currentDistance - closestDistance) / closestDistance;
-
-            if (currentDistance < minDistance && swapCriteria <= Parameters.SWAP_BOUND) {
-                minDistance = currentDistance;
-                secondClosest = depotId;
-            }
-        }
-
-        if (secondClosest >= 0) {
-            swappable.add(new ArrayList<>(Arrays.asList(customerId, closestDepot, secondClosest)));
-        }
+    /**
+     * Customers within the configured swap bound of a second depot, as (customer, closest depot, second closest depot).
+     */
+    public List<ArrayList<Integer>> getSwappable() {
+        return Collections.unmodifiableList(this.swappable);
     }
 
-    public ArrayList<Integer> getRandomSwappable() {
+    public ArrayList<Integer> getRandomSwappable(Random random) {
         return this.swappable.get(random.nextInt(this.swappable.size()));
     }
 }
@@ -0,0 +1,132 @@
+package Models;
+
+import Utilities.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Packed lower triangle of distances, in single or double precision, in a memory mapped file. The distances
+ * live off the heap, in the page cache, so the operating system decides how much of them stays resident. The
+ * file is split over several buffers since a single mapping is limited to 2 GB.
+ */
+public class MappedDistanceStore implements DistanceStore {
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final int numNodes;
+    private final boolean singlePrecision;
+    private final long size;
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Maps numNodes * (numNodes - 1) / 2 floats or doubles, in native byte order, starting at the given offset
+     * of an existing file.
+     */
+    public MappedDistanceStore(Path file, long offset, int numNodes, boolean singlePrecision) throws IOException {
+        this.numNodes = numNodes;
+        this.singlePrecision = singlePrecision;
+        this.size = size(numNodes, singlePrecision);
+
+        int numChunks = (int) ((this.size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        this.chunks = new MappedByteBuffer[numChunks];
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < numChunks; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                long length = Math.min(1L << CHUNK_SHIFT, this.size - start);
+
+                this.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, length);
+                this.chunks[i].order(ByteOrder.nativeOrder());
+            }
+        }
+    }
+
+    /**
+     * Writes the distances to a temporary file, deleted on exit, and maps it.
+     */
+    public static MappedDistanceStore create(double[] x, double[] y) throws IOException {
+        Path file = Files.createTempFile("distances", ".bin");
+        file.toFile().deleteOnExit();
+
+        write(x, y, file, 0, true);
+
+        return new MappedDistanceStore(file, 0, x.length, true);
+    }
+
+    /**
+     * Bytes taken by the packed triangle for the given number of nodes.
+     */
+    public static long size(int numNodes, boolean singlePrecision) {
+        return (long) numNodes * (numNodes - 1) / 2 * (singlePrecision ? Float.BYTES : Double.BYTES);
+    }
+
+    /**
+     * Writes the packed triangle of distances, in native byte order, at the given offset of the file.
+     */
+    public static void write(double[] x, double[] y, Path file, long offset, boolean singlePrecision) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.nativeOrder());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            channel.position(offset);
+
+            for (int i = 1; i < x.length; i++) {
+                for (int j = 0; j < i; j++) {
+                    if (!buffer.hasRemaining()) {
+                        flush(buffer, channel);
+                    }
+                    double dist = Utils.EuclideanDist(x[i], y[i], x[j], y[j]);
+
+                    if (singlePrecision) {
+                        buffer.putFloat((float) dist);
+                    } else {
+                        buffer.putDouble(dist);
+                    }
+                }
+            }
+            flush(buffer, channel);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+
+        if (this.singlePrecision) {
+            long position = DistanceStore.triangularIndex(i, j) * Float.BYTES;
+
+            return this.chunks[(int) (position >>> CHUNK_SHIFT)].getFloat((int) (position & CHUNK_MASK));
+        }
+
+        long position = DistanceStore.triangularIndex(i, j) * Double.BYTES;
+
+        return this.chunks[(int) (position >>> CHUNK_SHIFT)].getDouble((int) (position & CHUNK_MASK));
+    }
+
+    @Override
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return size;
+    }
+}
@@ -0,0 +1,55 @@
+package Models;
+
+import Utilities.Utils;
+
+/**
+ * Full n x n matrix. Fastest lookups, but stores every distance twice.
+ */
+public class MatrixDistanceStore implements DistanceStore {
+
+    private final double[][] distances;
+
+    public MatrixDistanceStore(double[] x, double[] y) {
+        int numNodes = x.length;
+        this.distances = new double[numNodes][numNodes];
+
+        for (int i = 0; i < numNodes; i++) {
+            for (int j = 0; j < i; j++) {
+                double dist = Utils.EuclideanDist(x[i], y[i], x[j], y[j]);
+                this.distances[i][j] = dist;
+                this.distances[j][i] = dist;
+            }
+        }
+    }
+
+    /**
+     * Copies the distances of another store, such as one mapped from an instance cache.
+     */
+    public MatrixDistanceStore(DistanceStore source) {
+        int numNodes = source.getNumNodes();
+        this.distances = new double[numNodes][numNodes];
+
+        for (int i = 0; i < numNodes; i++) {
+            for (int j = 0; j < i; j++) {
+                double dist = source.get(i, j);
+                this.distances[i][j] = dist;
+                this.distances[j][i] = dist;
+            }
+        }
+    }
+
+    @Override
+    public double get(int i, int j) {
+        return this.distances[i][j];
+    }
+
+    @Override
+    public int getNumNodes() {
+        return this.distances.length;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return (long) this.distances.length * this.distances.length * Double.BYTES;
+    }
+}
@@ -0,0 +1,93 @@
+package Models;
+
+import Utilities.Utils;
+
+/**
+ * Packed lower triangle of the distance matrix, in double or single precision. Uses a quarter to an eighth
+ * of the memory of the full matrix, at the cost of some index arithmetic per lookup.
+ */
+public class TriangularDistanceStore implements DistanceStore {
+
+    private final int numNodes;
+    // Exactly one of these is set, depending on the precision
+    private final double[] distances;
+    private final float[] floatDistances;
+
+    public TriangularDistanceStore(double[] x, double[] y, boolean singlePrecision) {
+        this.numNodes = x.length;
+
+        long size = (long) this.numNodes * (this.numNodes - 1) / 2;
+
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many nodes for a packed array: " + this.numNodes);
+        }
+
+        this.distances = singlePrecision ? null : new double[(int) size];
+        this.floatDistances = singlePrecision ? new float[(int) size] : null;
+
+        int index = 0;
+
+        for (int i = 1; i < this.numNodes; i++) {
+            for (int j = 0; j < i; j++) {
+                double dist = Utils.EuclideanDist(x[i], y[i], x[j], y[j]);
+
+                if (singlePrecision) {
+                    this.floatDistances[index++] = (float) dist;
+                } else {
+                    this.distances[index++] = dist;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the distances of another store, such as one mapped from an instance cache.
+     */
+    public TriangularDistanceStore(DistanceStore source, boolean singlePrecision) {
+        this.numNodes = source.getNumNodes();
+
+        long size = (long) this.numNodes * (this.numNodes - 1) / 2;
+
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many nodes for a packed array: " + this.numNodes);
+        }
+
+        this.distances = singlePrecision ? null : new double[(int) size];
+        this.floatDistances = singlePrecision ? new float[(int) size] : null;
+
+        int index = 0;
+
+        for (int i = 1; i < this.numNodes; i++) {
+            for (int j = 0; j < i; j++) {
+                double dist = source.get(i, j);
+
+                if (singlePrecision) {
+                    this.floatDistances[index++] = (float) dist;
+                } else {
+                    this.distances[index++] = dist;
+                }
+            }
+        }
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+
+        int index = (int) DistanceStore.triangularIndex(i, j);
+
+        return this.distances != null ? this.distances[index] : this.floatDistances[index];
+    }
+
+    @Override
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return this.distances != null ? (long) this.distances.length * Double.BYTES : (long) this.floatDistances.length * Float.BYTES;
+    }
+}
@@ -1,67 +1,122 @@
 package Models;
 
-import Utilities.Parameters;
 import org.javatuples.Triplet;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 public class Vehicle implements Serializable {
 
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int DEPOT = -1;
+
     private final double maxLoad;
     private final double maxLength;
+    // Demand per customer id, shared with the problem instance
+    private final double[] demands;
     private double currentLoad;
-    private ArrayList<Customer> customers;
+    // Customer ids in visiting order, only the first numCustomers entries are in use
+    private int[] customers;
+    private int numCustomers;
     private final Depot depot;
-    private final Random random = new Random();
+    // Position of this vehicle in its depot
+    private final int index;
     private double routeCost;
+    // Prefix sums rebuilt together with routeCost: distanceTo[i] is the distance driven when arriving at
+    // position i (distanceTo[numCustomers] is the full route), loadTo[i] the demand of the customers before i
+    private double[] distanceTo;
+    private double[] loadTo;
     private boolean updated;
+    // Zobrist style hash of the route, see getHash()
+    private long hash;
 
-    public Vehicle(double maxLoad, double maxLength, Depot depot) {
+    public Vehicle(double maxLoad, double maxLength, double[] demands, Depot depot, int index) {
         this.maxLoad = maxLoad;
         this.maxLength = maxLength;
+        this.demands = demands;
         this.depot = depot;
+        this.index = index;
         this.updated = true;
-        this.customers = new ArrayList<>();
+        this.customers = new int[INITIAL_CAPACITY];
+        this.numCustomers = 0;
         this.currentLoad = 0.0;
     }
 
+    public Vehicle(Vehicle other, Depot depot) {
+        this.maxLoad = other.maxLoad;
+        this.maxLength = other.maxLength;
+        this.demands = other.demands;
+        this.depot = depot;
+        this.index = other.index;
+        this.updated = other.updated;
+        this.customers = Arrays.copyOf(other.customers, other.customers.length);
+        this.numCustomers = other.numCustomers;
+        this.currentLoad = other.currentLoad;
+        this.routeCost = other.routeCost;
+        this.hash = other.hash;
+
+        if (!other.updated) {
+            this.distanceTo = Arrays.copyOf(other.distanceTo, other.distanceTo.length);
+            this.loadTo = Arrays.copyOf(other.loadTo, other.loadTo.length);
+        }
+    }
+
+    /**
+     * Makes this route a copy of the same route of another depot, reusing its arrays where they are large enough.
+     */
+    void copyFrom(Vehicle other) {
+        if (this.customers.length < other.numCustomers) {
+            this.customers = new int[other.customers.length];
+        }
+
+        System.arraycopy(other.customers, 0, this.customers, 0, other.numCustomers);
+        this.numCustomers = other.numCustomers;
+        this.updated = other.updated;
+        this.currentLoad = other.currentLoad;
+        this.routeCost = other.routeCost;
+        this.hash = other.hash;
+
+        if (!other.updated) {
+            if (this.distanceTo == null || this.distanceTo.length < other.numCustomers + 1) {
+                this.distanceTo = new double[other.distanceTo.length];
+                this.loadTo = new double[other.loadTo.length];
+            }
+
+            System.arraycopy(other.distanceTo, 0, this.distanceTo, 0, other.numCustomers + 1);
+            System.arraycopy(other.loadTo, 0, this.loadTo, 0, other.numCustomers + 1);
+        }
+    }
+
     public double getCurrentLoad() {
         return currentLoad;
     }
 
-    public ArrayList<Customer> getCustomers() {
-        return customers;
+    /**
+     * Returns a copy of the customer ids on this route, in visiting order.
+     */
+    public int[] getCustomers() {
+        return Arrays.copyOf(this.customers, this.numCustomers);
     }
 
     public int getNumCustomers() {
-        return this.customers.size();
+        return this.numCustomers;
     }
 
-    public Customer getCustomer(int i) {
-        return this.customers.get(i);
+    public int getCustomer(int i) {
+        return this.customers[i];
     }
 
-    public Customer getCustomerById(int id) {
-        for (Customer customer : this.customers) {
-            if (customer.getId() == id) {
-                return customer;
-            }
-        }
-        return null;
-    }
-
-    public Customer getFirstCustomer() {
-        return this.customers.get(0);
+    public int getFirstCustomer() {
+        return this.customers[0];
     }
 
-    public Customer getLastCustomer() {
-        return this.customers.get(this.customers.size() - 1);
+    public int getLastCustomer() {
+        return this.customers[this.numCustomers - 1];
     }
 
-    public Customer getSecondLastCustomer() {
-        return this.customers.get(this.customers.size() - 2);
+    public int getSecondLastCustomer() {
+        return this.customers[this.numCustomers - 2];
     }
 
     public boolean getFeasibility(MDVRP problem) {
@@ -72,8 +127,8 @@ public class Vehicle implements Serializable {
         }
     }
 
-    public boolean insertCustomerIfFeasible(Customer customer, MDVRP problem) {
-        double demand = customer.getDemand();
+    public boolean insertCustomerIfFeasible(int customer) {
+        double demand = this.demands[customer];
 
         if (this.currentLoad + demand < this.maxLoad) {
 
@@ -85,157 +140,234 @@ public class Vehicle implements Serializable {
         return false;
     }
 
-    public boolean testLengthIncrement(Customer c, int index, MDVRP problem) {
+    public boolean testLengthIncrement(int c, int index, MDVRP problem) {
         if (this.maxLength == 0) {
             return true;
         }
 
-        double deltaLength;
+        return this.getRouteCost(problem) + this.insertionDelta(c, index, problem) < this.maxLength;
+    }
 
-        if (index == 0) {
-            if (this.getNumCustomers() == 0) {
-                deltaLength = 2 * problem.getD2CDistance(this.depot.getId(), c.getId());
-            } else {
-                deltaLength = problem.getD2CDistance(this.depot.getId(), c.getId());
+    public Triplet<Integer, Double, Boolean> bestInsertion(int c, MDVRP problem) {
+        boolean feasible = this.testDemandIncrement(this.demands[c]);
+        // Also rebuilds the prefix sums, whose differences give the length of the edge each insertion breaks
+        double routeCost = this.getRouteCost(problem);
+        double depotDistance = problem.getD2CDistance(this.depot.getId(), c);
 
-                deltaLength += problem.getC2CDistance(c.getId(), this.getCustomer(0).getId());
+        double toNext = this.numCustomers == 0 ? depotDistance : problem.getC2CDistance(c, this.customers[0]);
+        double fromPrev = toNext;
 
-                deltaLength -= problem.getD2CDistance(this.depot.getId(), this.getCustomer(0).getId());
+        int bestIndex = 0;
+        double bestDeltaCost = depotDistance + toNext - this.distanceTo[0];
+        boolean lengthFeasible = this.maxLength == 0 || routeCost + bestDeltaCost < this.maxLength;
+
+        for (int i = 1; i <= this.numCustomers; i++) {
+            toNext = i == this.numCustomers ? depotDistance : problem.getC2CDistance(c, this.customers[i]);
+
+            double currDeltaCost = fromPrev + toNext - (this.distanceTo[i] - this.distanceTo[i - 1]);
+            boolean currFeasible = this.maxLength == 0 || routeCost + currDeltaCost < this.maxLength;
+
+            fromPrev = toNext;
+
+            if (currFeasible) {
+                if (currDeltaCost < bestDeltaCost && lengthFeasible) {
+                    bestDeltaCost = currDeltaCost;
+                    bestIndex = i;
+                } else if (!lengthFeasible) {
+                    bestDeltaCost = currDeltaCost;
+                    bestIndex = i;
+                    lengthFeasible = true;
+                }
+            } else {
+                if (!lengthFeasible) {
+                    if (currDeltaCost < bestDeltaCost) {
+                        bestDeltaCost = currDeltaCost;
+                        bestIndex = i;
+                    }
+                }
             }
-        } else if (index == this.customers.size()) {
+        }
 
-            deltaLength = problem.getD2CDistance(this.depot.getId(), c.getId());
+        return Triplet.with(bestIndex, bestDeltaCost, feasible && lengthFeasible);
+    }
 
-            deltaLength += problem.getC2CDistance(this.getLastCustomer().getId(), c.getId());
+    /**
+     * Change in route length from inserting customer c before position i (i == getNumCustomers() appends).
+     */
+    public double insertionDelta(int c, int i, MDVRP problem) {
+        int prev = i == 0 ? DEPOT : this.customers[i - 1];
+        int next = i == this.numCustomers ? DEPOT : this.customers[i];
 
-            deltaLength -= problem.getD2CDistance(this.depot.getId(), this.getLastCustomer().getId());
+        return this.distance(prev, c, problem) + this.distance(c, next, problem) - this.distance(prev, next, problem);
+    }
 
+    /**
+     * Change in route length from removing the customer at position i.
+     */
+    public double removalDelta(int i, MDVRP problem) {
+        int prev = i == 0 ? DEPOT : this.customers[i - 1];
+        int next = i == this.numCustomers - 1 ? DEPOT : this.customers[i + 1];
+        int c = this.customers[i];
 
-        } else {
-            deltaLength = problem.getC2CDistance(this.getCustomer(index-1).getId(), c.getId());
+        return this.distance(prev, next, problem) - this.distance(prev, c, problem) - this.distance(c, next, problem);
+    }
 
-            deltaLength += problem.getC2CDistance(c.getId(), this.getCustomer(index).getId());
+    /**
+     * Change in route length from replacing the customer at position i with customer c.
+     */
+    public double replacementDelta(int i, int c, MDVRP problem) {
+        int prev = i == 0 ? DEPOT : this.customers[i - 1];
+        int next = i == this.numCustomers - 1 ? DEPOT : this.customers[i + 1];
+        int old = this.customers[i];
 
-            deltaLength -= problem.getC2CDistance(this.getCustomer(index-1).getId(), this.getCustomer(index).getId());
-        }
+        return this.distance(prev, c, problem) + this.distance(c, next, problem)
+                - this.distance(prev, old, problem) - this.distance(old, next, problem);
+    }
+
+    /**
+     * Change in route length from moving the length customers starting at position from into the gap before
+     * position gap, as done by moveSegment.
+     */
+    public double segmentMoveDelta(int from, int length, int gap, boolean reversed, MDVRP problem) {
+        int prev = from == 0 ? DEPOT : this.customers[from - 1];
+        int next = from + length == this.numCustomers ? DEPOT : this.customers[from + length];
+        int first = this.customers[from];
+        int last = this.customers[from + length - 1];
+        int before = gap == 0 ? DEPOT : this.customers[gap - 1];
+        int after = gap == this.numCustomers ? DEPOT : this.customers[gap];
 
-        return this.getRouteCost(problem) + deltaLength < this.maxLength;
+        double removed = this.distance(prev, next, problem) - this.distance(prev, first, problem)
+                - this.distance(last, next, problem);
+        double inserted = reversed
+                ? this.distance(before, last, problem) + this.distance(first, after, problem)
+                : this.distance(before, first, problem) + this.distance(last, after, problem);
+
+        return removed + inserted - this.distance(before, after, problem);
     }
 
-    public Triplet<Integer, Double, Boolean> bestInsertion(Customer c, MDVRP problem) {
-        boolean feasible = this.testDemandIncrement(c.getDemand());
-        if (this.customers.size() == 0) {
-            double routeCost = 2 * problem.getD2CDistance(this.depot.getId(), c.getId());
+    /**
+     * Change in route length from reversing the customers in positions [from, to). Distances are symmetric,
+     * so only the two edges at the ends of the segment change.
+     */
+    public double reversalDelta(int from, int to, MDVRP problem) {
+        if (to - from < 2) {
+            return 0.0;
+        }
 
-            boolean allowedLength = testLengthIncrement(c, 0, problem);
-            return Triplet.with(0, routeCost, feasible && allowedLength);
+        int prev = from == 0 ? DEPOT : this.customers[from - 1];
+        int next = to == this.numCustomers ? DEPOT : this.customers[to];
+        int first = this.customers[from];
+        int last = this.customers[to - 1];
 
-        } else {
-            int bestIndex = 0;
-            double bestDeltaCost = problem.getD2CDistance(this.depot.getId(), c.getId());
-            bestDeltaCost += problem.getC2CDistance(c.getId(), this.customers.get(0).getId());
-            bestDeltaCost -= problem.getD2CDistance(this.depot.getId(), this.customers.get(0).getId());
-            boolean lengthFeasible = testLengthIncrement(c, 0, problem);
-
-            if (this.customers.size() > 1) {
-                for (int i = 1; i < this.customers.size(); i++) {
-                    double currDeltaCost = problem.getC2CDistance(this.customers.get(i - 1).getId(), c.getId());
-                    currDeltaCost += problem.getC2CDistance(c.getId(), this.customers.get(i).getId());
-                    currDeltaCost -= problem.getC2CDistance(this.customers.get(i - 1).getId(), this.customers.get(i).getId());
-                    boolean currFeasible = testLengthIncrement(c, i, problem);
-
-                    if (currFeasible) {
-                        if (currDeltaCost < bestDeltaCost && lengthFeasible) {
-                            bestDeltaCost = currDeltaCost;
-                            bestIndex = i;
-                        } else if (!lengthFeasible) {
-                            bestDeltaCost = currDeltaCost;
-                            bestIndex = i;
-                            lengthFeasible = true;
-                        }
-                    } else {
-                        if (!lengthFeasible) {
-                            if (currDeltaCost < bestDeltaCost) {
-                                bestDeltaCost = currDeltaCost;
-                                bestIndex = i;
-                            }
-                        }
-                    }
+        return this.distance(prev, last, problem) + this.distance(first, next, problem)
+                - this.distance(prev, first, problem) - this.distance(last, next, problem);
+    }
 
+    /**
+     * Distance driven from position from to position to along the route.
+     */
+    public double segmentDistance(int from, int to, MDVRP problem) {
+        this.getRouteCost(problem);
+        return this.distanceTo[to] - this.distanceTo[from];
+    }
 
-                }
-                double lastDeltaCost = problem.getC2CDistance(this.customers.get(this.customers.size() - 1).getId(), c.getId());
-                lastDeltaCost += problem.getD2CDistance(this.depot.getId(), c.getId());
-                lastDeltaCost -= problem.getD2CDistance(this.depot.getId(), this.customers.get(this.customers.size() - 1).getId());
-                boolean lastFeasible = testLengthIncrement(c, this.customers.size(), problem);
-
-                if (lastFeasible) {
-                    if (lastDeltaCost < bestDeltaCost && lengthFeasible) {
-                        bestDeltaCost = lastDeltaCost;
-                        bestIndex = this.customers.size();
-                    } else if (!lengthFeasible){
-                        bestDeltaCost = lastDeltaCost;
-                        bestIndex = this.customers.size();
-                        lengthFeasible = true;
-                    }
-                } else {
-                    if (!lengthFeasible) {
-                        if (lastDeltaCost < bestDeltaCost) {
-                            bestDeltaCost = lastDeltaCost;
-                            bestIndex = this.customers.size();
-                        }
-                    }
-                }
-            }
-            return Triplet.with(bestIndex, bestDeltaCost, feasible && lengthFeasible);
+    /**
+     * Total demand of the customers in positions [from, to).
+     */
+    public double segmentLoad(int from, int to, MDVRP problem) {
+        this.getRouteCost(problem);
+        return this.loadTo[to] - this.loadTo[from];
+    }
+
+    public boolean testLengthDelta(double deltaLength, MDVRP problem) {
+        return this.maxLength == 0 || this.getRouteCost(problem) + deltaLength <= this.maxLength;
+    }
+
+    // Distance between two route nodes, where DEPOT stands for this vehicle's depot
+    private double distance(int from, int to, MDVRP problem) {
+        if (from == DEPOT) {
+            return to == DEPOT ? 0.0 : problem.getD2CDistance(this.depot.getId(), to);
+        } else if (to == DEPOT) {
+            return problem.getD2CDistance(this.depot.getId(), from);
         }
+        return problem.getC2CDistance(from, to);
     }
 
-    public void forceInsertCustomer(Customer customer) {
+    public void forceInsertCustomer(int customer) {
         this.insertCustomer(customer);
     }
 
-    public void insertCustomerByIndex(int i, Customer customer) {
+    public void insertCustomerByIndex(int i, int customer) {
         this.insertCustomer(i, customer);
     }
 
-    public void insertFirstCustomer(Customer customer) {
+    public void insertFirstCustomer(int customer) {
         this.insertCustomer(0, customer);
     }
 
     public void removeLastCustomer() {
-        this.removeCustomer(this.customers.size() - 1);
+        this.removeCustomerByIndex(this.numCustomers - 1);
+    }
+
+    /**
+     * Removes the customer at position i and returns its id.
+     */
+    public int removeCustomerByIndex(int i) {
+        int customer = this.customers[i];
+        int prev = i == 0 ? DEPOT : this.customers[i - 1];
+        int next = i == this.numCustomers - 1 ? DEPOT : this.customers[i + 1];
+        this.addHash(this.edgeKey(prev, next) - this.edgeKey(prev, customer) - this.edgeKey(customer, next));
+        System.arraycopy(this.customers, i + 1, this.customers, i, this.numCustomers - i - 1);
+        this.numCustomers--;
+        this.currentLoad -= this.demands[customer];
+        this.depot.setLocation(customer, -1, -1);
+        this.updateLocations(i, this.numCustomers);
+        this.setUpdated();
+        return customer;
+    }
+
+    /**
+     * Puts a customer at position i and returns the customer it replaces. The replaced customer keeps its
+     * entry in the location index, so the caller is expected to place it elsewhere.
+     */
+    public int setCustomerByIndex(int i, int customer) {
+        int oldCustomer = this.customers[i];
+        int prev = i == 0 ? DEPOT : this.customers[i - 1];
+        int next = i == this.numCustomers - 1 ? DEPOT : this.customers[i + 1];
+        this.addHash(this.edgeKey(prev, customer) + this.edgeKey(customer, next)
+                - this.edgeKey(prev, oldCustomer) - this.edgeKey(oldCustomer, next));
+        this.customers[i] = customer;
+        this.currentLoad += this.demands[customer] - this.demands[oldCustomer];
+        this.updateLocations(i, i + 1);
+        this.setUpdated();
+        return oldCustomer;
     }
 
-    public boolean removeCustomer(Customer c) {
-        for (int i = 0; i < this.customers.size(); i++) {
-            if (this.customers.get(i).getId() == c.getId()) {
-                this.removeCustomer(i);
-                return true;
-            }
+    // Records the current position of the customers in [from, to) in the chromosome's location index
+    private void updateLocations(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.depot.setLocation(this.customers[i], this.index, i);
         }
-        return false;
     }
 
-    public void setCustomer(Customer newCustomer, Customer oldCustomer) {
-        int index = this.customers.indexOf(oldCustomer);
-        this.removeCustomer(oldCustomer);
-        this.insertCustomer(index, newCustomer);
+    private void insertCustomer(int customer) {
+        this.insertCustomer(this.numCustomers, customer);
     }
 
-    private void insertCustomer(Customer customer) {
-        this.insertCustomer(this.customers.size(), customer);
-    }
+    private void insertCustomer(int i, int customer) {
+        int prev = i == 0 ? DEPOT : this.customers[i - 1];
+        int next = i == this.numCustomers ? DEPOT : this.customers[i];
+        this.addHash(this.edgeKey(prev, customer) + this.edgeKey(customer, next) - this.edgeKey(prev, next));
 
-    private void insertCustomer(int i, Customer customer) {
-        this.currentLoad += customer.getDemand();
-        this.setUpdated();
-        this.customers.add(i, customer);
-    }
+        if (this.numCustomers == this.customers.length) {
+            this.customers = Arrays.copyOf(this.customers, 2 * this.customers.length);
+        }
 
-    private void removeCustomer(int i) {
-        Customer c = this.customers.remove(i);
-        this.currentLoad -= c.getDemand();
+        System.arraycopy(this.customers, i, this.customers, i + 1, this.numCustomers - i);
+        this.customers[i] = customer;
+        this.numCustomers++;
+        this.currentLoad += this.demands[customer];
+        this.updateLocations(i, this.numCustomers);
         this.setUpdated();
     }
 
@@ -243,28 +375,125 @@ public class Vehicle implements Serializable {
         return this.currentLoad + demand <= this.maxLoad;
     }
 
-    public void reverse() {
+    public void reverse(Random random) {
         int k1 = random.nextInt(getNumCustomers() + 1);
         int k2 = random.nextInt(getNumCustomers() + 1);
 
-        int low = Math.min(k1, k2);
-        int hi = Math.max(k1, k2);
+        this.reverseSegment(Math.min(k1, k2), Math.max(k1, k2));
+    }
+
+    /**
+     * Reverses the customers in positions [from, to).
+     */
+    public void reverseSegment(int from, int to) {
+        if (to - from >= 2) {
+            // Edges are undirected, so only the two at the ends of the segment change
+            int prev = from == 0 ? DEPOT : this.customers[from - 1];
+            int next = to == this.numCustomers ? DEPOT : this.customers[to];
+            int first = this.customers[from];
+            int last = this.customers[to - 1];
+            this.addHash(this.edgeKey(prev, last) + this.edgeKey(first, next)
+                    - this.edgeKey(prev, first) - this.edgeKey(last, next));
+        }
+
+        for (int low = from, hi = to - 1; low < hi; low++, hi--) {
+            int customer = this.customers[low];
+            this.customers[low] = this.customers[hi];
+            this.customers[hi] = customer;
+        }
 
-        for (int i = low; i < low + (hi - low)/2; i++) {
-            Customer c1 = this.customers.get(i);
-            Customer c2 = this.customers.get(hi - i - 1);
+        this.updateLocations(from, to);
+        this.setUpdated();
+    }
 
-            this.setCustomer(c1, c2);
-            this.setCustomer(c2, c1);
+    /**
+     * Moves the length customers starting at position from into the gap before position gap (positions as
+     * before the move, gap outside [from, from + length]), reversing them if asked to.
+     */
+    public void moveSegment(int from, int length, int gap, boolean reversed) {
+        int prev = from == 0 ? DEPOT : this.customers[from - 1];
+        int next = from + length == this.numCustomers ? DEPOT : this.customers[from + length];
+        int first = this.customers[from];
+        int last = this.customers[from + length - 1];
+        int before = gap == 0 ? DEPOT : this.customers[gap - 1];
+        int after = gap == this.numCustomers ? DEPOT : this.customers[gap];
+        this.addHash(this.edgeKey(prev, next) - this.edgeKey(prev, first) - this.edgeKey(last, next)
+                + (reversed ? this.edgeKey(before, last) + this.edgeKey(first, after)
+                : this.edgeKey(before, first) + this.edgeKey(last, after))
+                - this.edgeKey(before, after));
+
+        int[] segment = new int[length];
+
+        for (int k = 0; k < length; k++) {
+            segment[k] = this.customers[reversed ? from + length - 1 - k : from + k];
         }
+
+        int start;
+        int end;
+
+        if (gap > from) {
+            // Customers between the segment and the gap shift back over it
+            System.arraycopy(this.customers, from + length, this.customers, from, gap - from - length);
+            System.arraycopy(segment, 0, this.customers, gap - length, length);
+            start = from;
+            end = gap;
+        } else {
+            System.arraycopy(this.customers, gap, this.customers, gap + length, from - gap);
+            System.arraycopy(segment, 0, this.customers, gap, length);
+            start = gap;
+            end = from + length;
+        }
+
+        this.updateLocations(start, end);
+        this.setUpdated();
     }
 
     public void clearRoute() {
-        this.customers.clear();
+        for (int i = 0; i < this.numCustomers; i++) {
+            this.depot.setLocation(this.customers[i], -1, -1);
+        }
+
+        this.numCustomers = 0;
         this.currentLoad = 0.0;
+        this.addHash(-this.hash);
         this.setUpdated();
     }
 
+    /**
+     * Hash of the route as the wrapping sum of a pseudo-random key per edge, depot edges included. Edges are
+     * undirected, so a route and its reverse hash the same, as they have the same cost. Summed over all
+     * routes this identifies a solution regardless of vehicle order, and every route change updates it in
+     * constant time.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    private void addHash(long delta) {
+        this.hash += delta;
+        this.depot.addHash(delta);
+    }
+
+    // Key of the undirected edge between two route nodes, 0 for the depot to itself of an empty route
+    private long edgeKey(int from, int to) {
+        if (from == DEPOT && to == DEPOT) {
+            return 0;
+        }
+
+        // Customers keep their ids, depot d becomes -(d + 1)
+        long a = from == DEPOT ? -(this.depot.getId() + 1) : from;
+        long b = to == DEPOT ? -(this.depot.getId() + 1) : to;
+
+        return mix(Math.min(a, b) * 0x9E3779B97F4A7C15L + Math.max(a, b));
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     public double getFitness(MDVRP problem) {
         return this.getRouteCost(problem) + this.getPenalty(problem);
     }
@@ -277,43 +506,64 @@ public class Vehicle implements Serializable {
         return this.routeCost;
     }
 
+    /**
+     * The fitness this vehicle would have with the given route length and load, for evaluating moves
+     * before making them.
+     */
+    public double fitnessOf(double routeCost, double load, MDVRP problem) {
+        double penalty = Math.max(problem.getConfig().getPenaltyDemand() * (load - this.maxLoad), 0);
+
+        if (this.maxLength != 0) {
+            penalty += Math.max(problem.getConfig().getPenaltyLength() * (routeCost - this.maxLength), 0);
+        }
+
+        return routeCost + penalty;
+    }
+
     public double getPenalty(MDVRP problem) {
         if (this.maxLength == 0) {
-            return getDemandPenalty();
+            return getDemandPenalty(problem);
         } else {
-            return getDemandPenalty() + getLengthPenalty(problem);
+            return getDemandPenalty(problem) + getLengthPenalty(problem);
         }
     }
 
-    public double getDemandPenalty() {
-        return Math.max(Parameters.PENALTY_DEMAND * (this.currentLoad - this.maxLoad), 0);
+    public double getDemandPenalty(MDVRP problem) {
+        return Math.max(problem.getConfig().getPenaltyDemand() * (this.currentLoad - this.maxLoad), 0);
     }
 
     public double getLengthPenalty(MDVRP problem) {
-        return Math.max(Parameters.PENALTY_LENGTH * (this.getRouteCost(problem) - this.maxLength), 0);
+        return Math.max(problem.getConfig().getPenaltyLength() * (this.getRouteCost(problem) - this.maxLength), 0);
     }
 
     private void updateRouteCost(MDVRP problem) {
-        this.routeCost = 0;
-
-        if (customers.size() == 0) {
-            return;
+        if (this.distanceTo == null || this.distanceTo.length < this.numCustomers + 1) {
+            this.distanceTo = new double[this.customers.length + 1];
+            this.loadTo = new double[this.customers.length + 1];
         }
 
-        double depotDistance = problem.getD2CDistance(this.depot.getId(), this.customers.get(0).getId());
+        double distance = 0.0;
+        double load = 0.0;
+        int prev = DEPOT;
 
-        if (customers.size() == 1) {
-            this.routeCost += 2 * depotDistance;
-            return;
-        } else {
-            this.routeCost += depotDistance;
+        for (int i = 0; i < this.numCustomers; i++) {
+            int c = this.customers[i];
+
+            distance += this.distance(prev, c, problem);
+            this.distanceTo[i] = distance;
+            this.loadTo[i] = load;
+
+            load += this.demands[c];
+            prev = c;
         }
 
-        for (int i = 0; i < customers.size() - 1; i++) {
-            this.routeCost += problem.getC2CDistance(this.customers.get(i).getId(), this.customers.get(i + 1).getId());
+        if (this.numCustomers > 0) {
+            distance += this.distance(prev, DEPOT, problem);
         }
 
-        this.routeCost += problem.getD2CDistance(this.depot.getId(), this.customers.get(this.customers.size() - 1).getId());
+        this.distanceTo[this.numCustomers] = distance;
+        this.loadTo[this.numCustomers] = load;
+        this.routeCost = distance;
     }
 
     public void setUpdated() {
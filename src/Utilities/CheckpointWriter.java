@@ -0,0 +1,111 @@
+package Utilities;
+
+import Events.CheckpointEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes solution snapshots of one run to a solution file in the background. The GA thread only swaps its
+ * snapshot into the pending slot; while a write is in progress the next snapshot waits there, and newer
+ * snapshots replace it, so a slow disk costs skipped intermediate checkpoints rather than search time.
+ *
+ * All writers share one daemon I/O thread, and every write goes through Utils.writeAtomically, so the file
+ * always holds a complete snapshot.
+ */
+public class CheckpointWriter {
+
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private final Path file;
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private volatile IOException failure;
+
+    public CheckpointWriter(String filename) {
+        this.file = Paths.get(Parameters.SOLUTIONS_FOLDER, filename + ".res");
+    }
+
+    /**
+     * Queues the snapshot for writing, replacing any snapshot that has not been picked up yet. Never blocks.
+     * Fitness and feasibility of the snapshot's solution only go into the checkpoint JFR event.
+     */
+    public void submit(String snapshot, double fitness, boolean feasible) {
+        // Only the submit that fills an empty slot schedules a write, later ones just replace its content
+        if (this.pending.getAndSet(new Snapshot(snapshot, fitness, feasible)) == null) {
+            IO.execute(this::drain);
+        } else {
+            this.coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until every submitted snapshot has been written, and rethrows the last write failure, if any.
+     */
+    public void flush() {
+        try {
+            IO.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (this.failure != null) {
+            throw new UncheckedIOException("Could not write checkpoint " + this.file, this.failure);
+        }
+    }
+
+    private void drain() {
+        Snapshot snapshot = this.pending.getAndSet(null);
+
+        if (snapshot == null) {
+            return;
+        }
+
+        CheckpointEvent event = new CheckpointEvent();
+        event.begin();
+
+        try {
+            Utils.writeAtomically(this.file, snapshot.text);
+        } catch (IOException e) {
+            // Reported by flush(), a failed checkpoint must not take the search down with it
+            this.failure = e;
+        }
+
+        if (event.shouldCommit()) {
+            event.file = this.file.toString();
+            event.bytes = snapshot.text.length();
+            event.fitness = snapshot.fitness;
+            event.feasible = snapshot.feasible;
+            event.coalesced = this.coalesced.getAndSet(0);
+            event.commit();
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final String text;
+        private final double fitness;
+        private final boolean feasible;
+
+        private Snapshot(String text, double fitness, boolean feasible) {
+            this.text = text;
+            this.fitness = fitness;
+            this.feasible = feasible;
+        }
+    }
+}
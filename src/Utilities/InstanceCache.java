@@ -0,0 +1,317 @@
+package Utilities;
+
+import Models.DistanceStore;
+import Models.MDVRP;
+import Models.MappedDistanceStore;
+import Models.MatrixDistanceStore;
+import Models.TriangularDistanceStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compiled binary copies of problem files. A cache file holds the coordinates, demands and depot limits, the
+ * closest depot of every customer, the swappable customers and the packed distance triangle, and is keyed on the
+ * SHA-256 of the source file. It is written on first use and mapped on later loads; the distances fill the
+ * configured distance store, or are used straight from the mapping by the mapped store, and are recomputed when
+ * the cached precision would change them. The other arrays are O(n) and are copied out of the mapping.
+ *
+ * A cache file is rebuilt whenever its format version, byte order, source hash or swap bound no longer match.
+ *
+ * Layout, in native byte order, every section 8-byte aligned:
+ *   long magic, int version, int byte order marker, byte[32] source hash, double swap bound,
+ *   int depots, int customers, int max vehicles, int bytes per distance (0, 4 or 8), int swappable count, int padding,
+ *   double[] x, double[] y, double[] demands, double[] max loads, double[] max lengths,
+ *   int[] closest depots, int[] swappable triples, padding, packed distance triangle
+ */
+public class InstanceCache {
+
+    private static final long MAGIC = 0x4d44565250434143L;
+    // Increase whenever the layout or the way any stored value is derived changes
+    private static final int VERSION = 1;
+    private static final int BYTE_ORDER_MARKER = 0x01020304;
+    private static final int HEADER_SIZE = 80;
+
+    /**
+     * The problem in the source file, from its cache file in the cache folder if that is still valid, otherwise
+     * parsed from the source and written to the cache.
+     */
+    public static MDVRP load(Path source, Path cacheFolder) {
+        byte[] content;
+
+        try {
+            content = Files.readAllBytes(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read problem file " + source, e);
+        }
+
+        byte[] hash = sha256(content);
+        Path cacheFile = cacheFolder.resolve(source.getFileName() + ".bin");
+
+        if (Files.exists(cacheFile)) {
+            try {
+                MDVRP problem = read(cacheFile, hash);
+
+                if (problem != null) {
+                    return problem;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable instance cache " + cacheFile + ": " + e);
+            }
+        }
+
+        MDVRP problem = ProblemInit.parse(ByteBuffer.wrap(content));
+
+        try {
+            write(problem, hash, cacheFolder, cacheFile);
+        } catch (IOException e) {
+            System.err.println("Could not write instance cache " + cacheFile + ": " + e);
+        }
+
+        return problem;
+    }
+
+    /**
+     * Reads a cache file, or returns null if it was built from another source or under other settings.
+     */
+    private static MDVRP read(Path cacheFile, byte[] hash) throws IOException {
+        int numDepots;
+        int numCustomers;
+        int maxVehicles;
+        int distanceBytes;
+        int swappableCount;
+        long distancesOffset;
+        MappedByteBuffer arrays;
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.nativeOrder());
+
+            if (header.getLong() != MAGIC || header.getInt() != VERSION || header.getInt() != BYTE_ORDER_MARKER) {
+                return null;
+            }
+
+            byte[] storedHash = new byte[hash.length];
+            header.get(storedHash);
+
+            if (!Arrays.equals(storedHash, hash) || header.getDouble() != Parameters.SWAP_BOUND) {
+                return null;
+            }
+
+            numDepots = header.getInt();
+            numCustomers = header.getInt();
+            maxVehicles = header.getInt();
+            distanceBytes = header.getInt();
+            swappableCount = header.getInt();
+
+            distancesOffset = distancesOffset(numDepots, numCustomers, swappableCount);
+            long distancesSize = distanceBytes > 0 ? MappedDistanceStore.size(numDepots + numCustomers, distanceBytes == Float.BYTES) : 0;
+
+            if (channel.size() != distancesOffset + distancesSize) {
+                return null;
+            }
+
+            arrays = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, distancesOffset - HEADER_SIZE);
+            arrays.order(ByteOrder.nativeOrder());
+        }
+
+        int numNodes = numDepots + numCustomers;
+
+        double[] x = readDoubles(arrays, numNodes);
+        double[] y = readDoubles(arrays, numNodes);
+        double[] demands = readDoubles(arrays, numCustomers);
+        double[] maxLoads = readDoubles(arrays, numDepots);
+        double[] maxLengths = readDoubles(arrays, numDepots);
+        int[] closestDepots = readInts(arrays, numCustomers);
+        int[] swappable = readInts(arrays, 3 * swappableCount);
+
+        String type = DistanceStore.resolveType(Parameters.DISTANCE_STORE, numNodes);
+        boolean singlePrecision = distanceBytes == Float.BYTES;
+        DistanceStore distances;
+
+        if (!reusable(type, distanceBytes)) {
+            distances = DistanceStore.create(x, y, type);
+        } else {
+            MappedDistanceStore mapped = new MappedDistanceStore(cacheFile, distancesOffset, numNodes, singlePrecision);
+
+            // Filling the in-heap stores from the cache skips the square roots
+            switch (type) {
+                case "matrix":
+                    distances = new MatrixDistanceStore(mapped);
+                    break;
+                case "triangular":
+                    distances = new TriangularDistanceStore(mapped, false);
+                    break;
+                case "triangular-float":
+                    distances = new TriangularDistanceStore(mapped, true);
+                    break;
+                case "mapped":
+                    distances = mapped;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown distance store: " + type);
+            }
+        }
+
+        return new MDVRP(x, y, demands, maxLoads, maxLengths, numDepots, maxVehicles, distances, closestDepots, swappable);
+    }
+
+    /**
+     * Whether a cached triangle of the given precision holds exactly the distances of the given store built
+     * from the coordinates: doubles for the double precision stores, and floats for the mapped store, which is
+     * single precision when built afresh. Rounding doubles to floats gives the same floats.
+     */
+    private static boolean reusable(String type, int distanceBytes) {
+        switch (type) {
+            case "matrix":
+            case "triangular":
+                return distanceBytes == Double.BYTES;
+            case "triangular-float":
+                return distanceBytes > 0;
+            case "mapped":
+                return distanceBytes == Float.BYTES;
+            default:
+                return false;
+        }
+    }
+
+    private static void write(MDVRP problem, byte[] hash, Path cacheFolder, Path cacheFile) throws IOException {
+        int numDepots = problem.getNumDepots();
+        int numCustomers = problem.getNumCustomers();
+        int numNodes = numDepots + numCustomers;
+        ArrayList<ArrayList<Integer>> swappable = new ArrayList<>(problem.getSwappable());
+
+        // Doubles keep the distances identical to a freshly built matrix; beyond that floats halve the file
+        int distanceBytes;
+
+        if (numNodes <= DistanceStore.TRIANGULAR_LIMIT) {
+            distanceBytes = Double.BYTES;
+        } else if (numNodes <= DistanceStore.MAPPED_LIMIT) {
+            distanceBytes = Float.BYTES;
+        } else {
+            distanceBytes = 0;
+        }
+
+        long distancesOffset = distancesOffset(numDepots, numCustomers, swappable.size());
+        ByteBuffer buffer = ByteBuffer.allocate((int) distancesOffset).order(ByteOrder.nativeOrder());
+
+        buffer.putLong(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(BYTE_ORDER_MARKER);
+        buffer.put(hash);
+        buffer.putDouble(Parameters.SWAP_BOUND);
+        buffer.putInt(numDepots);
+        buffer.putInt(numCustomers);
+        buffer.putInt(problem.getMaxVehicles());
+        buffer.putInt(distanceBytes);
+        buffer.putInt(swappable.size());
+        buffer.putInt(0);
+
+        double[] x = new double[numNodes];
+        double[] y = new double[numNodes];
+
+        for (int node = 0; node < numNodes; node++) {
+            x[node] = problem.getX(node);
+            y[node] = problem.getY(node);
+        }
+
+        for (double value : x) {
+            buffer.putDouble(value);
+        }
+        for (double value : y) {
+            buffer.putDouble(value);
+        }
+        for (double demand : problem.getDemands()) {
+            buffer.putDouble(demand);
+        }
+        for (int depot = 0; depot < numDepots; depot++) {
+            buffer.putDouble(problem.getMaxLoad(depot));
+        }
+        for (int depot = 0; depot < numDepots; depot++) {
+            buffer.putDouble(problem.getMaxLength(depot));
+        }
+        for (int customer = 0; customer < numCustomers; customer++) {
+            buffer.putInt(problem.getClosestDepot(customer));
+        }
+        for (ArrayList<Integer> entry : swappable) {
+            for (int value : entry) {
+                buffer.putInt(value);
+            }
+        }
+        buffer.position(buffer.capacity());
+        buffer.flip();
+
+        Files.createDirectories(cacheFolder);
+
+        // Written next to the cache file and moved into place, so concurrent runs never see a partial file
+        Path temporary = Files.createTempFile(cacheFolder, cacheFile.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            if (distanceBytes > 0) {
+                MappedDistanceStore.write(x, y, temporary, distancesOffset, distanceBytes == Float.BYTES);
+            }
+
+            try {
+                Files.move(temporary, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long distancesOffset(int numDepots, int numCustomers, int swappableCount) {
+        long doubles = 2L * (numDepots + numCustomers) + numCustomers + 2L * numDepots;
+        long ints = numCustomers + 3L * swappableCount;
+
+        return HEADER_SIZE + doubles * Double.BYTES + (ints * Integer.BYTES + 7) / 8 * 8;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int length) {
+        double[] values = new double[length];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + length * Double.BYTES);
+
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+
+        return values;
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
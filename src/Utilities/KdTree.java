@@ -0,0 +1,274 @@
+package Utilities;
+
+import java.util.Arrays;
+
+/**
+ * Static 2-d tree over a set of points, answering k-nearest and radius queries in logarithmic time. The tree
+ * is stored implicitly in one array: the node of the range [lo, hi) sits at its middle, splitting on x at even
+ * depths and on y at odd depths. Ties in distance are broken on the lower id, so results are deterministic.
+ */
+public class KdTree {
+
+    private final double[] x;
+    private final double[] y;
+    private final int[] ids;
+
+    /**
+     * Builds a tree over the points (x[i], y[i]), identified by their index i.
+     */
+    public KdTree(double[] x, double[] y) {
+        this.x = x;
+        this.y = y;
+        this.ids = new int[x.length];
+
+        for (int i = 0; i < this.ids.length; i++) {
+            this.ids[i] = i;
+        }
+
+        build(0, this.ids.length, 0);
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * Ids of the k points closest to (qx, qy), closest first, leaving out the point with id exclude (-1 for none).
+     */
+    public int[] nearest(double qx, double qy, int k, int exclude) {
+        k = Math.min(k, exclude >= 0 ? this.ids.length - 1 : this.ids.length);
+
+        if (k <= 0) {
+            return new int[0];
+        }
+
+        Heap heap = new Heap(k);
+        nearest(0, this.ids.length, 0, qx, qy, exclude, heap);
+
+        return heap.drain();
+    }
+
+    /**
+     * Ids of all points within radius of (qx, qy), in ascending order.
+     */
+    public int[] withinRadius(double qx, double qy, double radius) {
+        IdList found = new IdList();
+        withinRadius(0, this.ids.length, 0, qx, qy, radius * radius, found);
+
+        int[] result = Arrays.copyOf(found.ids, found.size);
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    private void withinRadius(int lo, int hi, int depth, double qx, double qy, double radius2, IdList found) {
+        if (lo >= hi) {
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int id = this.ids[mid];
+
+        if (distance2(id, qx, qy) <= radius2) {
+            found.add(id);
+        }
+
+        double diff = (depth & 1) == 0 ? qx - this.x[id] : qy - this.y[id];
+
+        if (diff <= 0 || diff * diff <= radius2) {
+            withinRadius(lo, mid, depth + 1, qx, qy, radius2, found);
+        }
+        if (diff >= 0 || diff * diff <= radius2) {
+            withinRadius(mid + 1, hi, depth + 1, qx, qy, radius2, found);
+        }
+    }
+
+    private void nearest(int lo, int hi, int depth, double qx, double qy, int exclude, Heap heap) {
+        if (lo >= hi) {
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int id = this.ids[mid];
+
+        if (id != exclude) {
+            heap.offer(id, distance2(id, qx, qy));
+        }
+
+        double diff = (depth & 1) == 0 ? qx - this.x[id] : qy - this.y[id];
+
+        int firstLo = diff < 0 ? lo : mid + 1;
+        int firstHi = diff < 0 ? mid : hi;
+        int secondLo = diff < 0 ? mid + 1 : lo;
+        int secondHi = diff < 0 ? hi : mid;
+
+        nearest(firstLo, firstHi, depth + 1, qx, qy, exclude, heap);
+
+        // Points on the far side of the split are at least diff away; equal distances may still win on id
+        if (!heap.isFull() || diff * diff <= heap.worstDistance()) {
+            nearest(secondLo, secondHi, depth + 1, qx, qy, exclude, heap);
+        }
+    }
+
+    private double distance2(int id, double qx, double qy) {
+        double dx = this.x[id] - qx;
+        double dy = this.y[id] - qy;
+
+        return dx * dx + dy * dy;
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        double[] axis = (depth & 1) == 0 ? this.x : this.y;
+
+        select(lo, hi - 1, mid, axis);
+
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    // Quickselect: places the k-th smallest id by coordinate at position k, smaller ones before, larger after
+    private void select(int left, int right, int k, double[] axis) {
+        while (left < right) {
+            double pivot = axis[this.ids[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (axis[this.ids[i]] < pivot) {
+                    i++;
+                }
+                while (axis[this.ids[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = this.ids[i];
+                    this.ids[i] = this.ids[j];
+                    this.ids[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap of the best candidates so far, ordered on (distance, id).
+     */
+    private static class Heap {
+
+        private final int[] ids;
+        private final double[] distances;
+        private int size;
+
+        Heap(int capacity) {
+            this.ids = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        boolean isFull() {
+            return this.size == this.ids.length;
+        }
+
+        double worstDistance() {
+            return this.distances[0];
+        }
+
+        void offer(int id, double distance) {
+            if (this.size < this.ids.length) {
+                this.ids[this.size] = id;
+                this.distances[this.size] = distance;
+                siftUp(this.size++);
+            } else if (worse(0, id, distance)) {
+                this.ids[0] = id;
+                this.distances[0] = distance;
+                siftDown(0, this.size);
+            }
+        }
+
+        int[] drain() {
+            int[] result = new int[this.size];
+
+            for (int i = this.size - 1; i >= 0; i--) {
+                result[i] = this.ids[0];
+                swap(0, i);
+                siftDown(0, i);
+            }
+            this.size = 0;
+
+            return result;
+        }
+
+        // Whether the entry at i ranks after the candidate (id, distance)
+        private boolean worse(int i, int id, double distance) {
+            return this.distances[i] > distance || (this.distances[i] == distance && this.ids[i] > id);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+
+                if (!worse(i, this.ids[parent], this.distances[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int size) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+
+                if (left < size && worse(left, this.ids[largest], this.distances[largest])) {
+                    largest = left;
+                }
+                if (right < size && worse(right, this.ids[largest], this.distances[largest])) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int id = this.ids[i];
+            this.ids[i] = this.ids[j];
+            this.ids[j] = id;
+
+            double distance = this.distances[i];
+            this.distances[i] = this.distances[j];
+            this.distances[j] = distance;
+        }
+    }
+
+    private static class IdList {
+
+        private int[] ids = new int[8];
+        private int size;
+
+        void add(int id) {
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            }
+            this.ids[this.size++] = id;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package Utilities;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads whitespace separated numbers straight from the bytes of a buffer, line by line, without creating
+ * Strings. Plain decimals are converted exactly as Double.parseDouble would; anything else (long mantissas,
+ * exponents beyond what a double holds exactly) falls back to it.
+ */
+public class NumberTokenizer {
+
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final ByteBuffer buffer;
+
+    public NumberTokenizer(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int nextInt() {
+        double value = nextDouble();
+
+        if (value != (int) value) {
+            throw new NumberFormatException("Expected an integer at byte " + this.buffer.position() + ", got " + value);
+        }
+        return (int) value;
+    }
+
+    public double nextDouble() {
+        skipWhitespace();
+
+        int start = this.buffer.position();
+        boolean negative = false;
+
+        if (this.buffer.hasRemaining() && (peek() == '-' || peek() == '+')) {
+            negative = this.buffer.get() == '-';
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+
+        while (this.buffer.hasRemaining() && isDigit(peek())) {
+            mantissa = accumulate(mantissa, this.buffer.get());
+            digits++;
+        }
+
+        if (this.buffer.hasRemaining() && peek() == '.') {
+            this.buffer.get();
+
+            while (this.buffer.hasRemaining() && isDigit(peek())) {
+                mantissa = accumulate(mantissa, this.buffer.get());
+                exponent--;
+                digits++;
+            }
+        }
+
+        if (digits == 0) {
+            throw new NumberFormatException("Expected a number at byte " + start);
+        }
+
+        if (this.buffer.hasRemaining() && (peek() == 'e' || peek() == 'E')) {
+            exact = false;
+            this.buffer.get();
+
+            while (this.buffer.hasRemaining() && (isDigit(peek()) || peek() == '-' || peek() == '+')) {
+                this.buffer.get();
+            }
+        }
+
+        if (exact && digits < 19 && mantissa < MAX_EXACT_MANTISSA && -exponent < POWERS_OF_TEN.length) {
+            // Both operands are exact, so the single division is correctly rounded
+            double value = exponent == 0 ? mantissa : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+
+        return Double.parseDouble(token(start));
+    }
+
+    /**
+     * Skips the rest of the current line, including its line break.
+     */
+    public void skipLine() {
+        while (this.buffer.hasRemaining() && this.buffer.get() != '\n') {
+            // Consume up to and including the line break
+        }
+    }
+
+    private String token(int start) {
+        byte[] bytes = new byte[this.buffer.position() - start];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static long accumulate(long mantissa, byte digit) {
+        // Overflow is caught by the digit count before the value is used
+        return mantissa * 10 + (digit - '0');
+    }
+
+    private byte peek() {
+        return this.buffer.get(this.buffer.position());
+    }
+
+    private void skipWhitespace() {
+        while (this.buffer.hasRemaining() && peek() <= ' ') {
+            this.buffer.get();
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -7,11 +7,42 @@ public class Parameters {
 
     public final static String PROBLEM_FOLDER = "./data/Testing Data/Data Files/";
     public final static String SOLUTIONS_FOLDER = "./data/Solution files/";
+    // Best known solutions, the batch runner reports gaps against their costs
+    public final static String REFERENCE_FOLDER = "./data/Testing Data/Solution files/";
+    // Compiled binary copies of problem files, reused for as long as the source file is unchanged
+    public final static boolean INSTANCE_CACHE = true;
+    public final static String INSTANCE_CACHE_FOLDER = "./data/Instance cache/";
     public final static String PLOT_FILE = "./plots/mdvrp_plot.py";
     public final static Double FITNESS_TARGET = Double.NEGATIVE_INFINITY;
     public final static String PROBLEM_FILE = "p08";
     public final static boolean RUN_ALL = false;
     public final static int MAX_TIME = 300;
+    // Fixed seed for reproducible runs, or null to draw a new seed for every run
+    public final static Long SEED = null;
+    // Worker threads used for offspring generation and evaluation, 1 runs everything on the calling thread
+    public final static int THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Island model: independent populations on separate threads, 1 runs a single population
+    public final static int ISLANDS = 1;
+    public final static int MIGRATION_INTERVAL = 50;
+    public final static int MIGRANTS = 4;
+    // "ring" sends migrants to the next island, "random" to a randomly chosen other island
+    public final static String MIGRATION_TOPOLOGY = "ring";
+
+    // Batch mode (RUN_ALL): seeds per instance, concurrent runs, threads per run and share of the free heap
+    // the runs' populations may take together
+    public final static int BATCH_SEEDS = 1;
+    public final static int BATCH_RUN_THREADS = 1;
+    public final static int BATCH_WORKERS = Math.max(1, THREADS / BATCH_RUN_THREADS);
+    public final static double BATCH_MEMORY_FRACTION = 0.8;
+
+    // Racing tuner: seconds per run, seeds per instance, blocks before the first elimination, significance level
+    // of the eliminations and concurrent runs
+    public final static double TUNE_BUDGET = 10;
+    public final static int TUNE_SEEDS = 3;
+    public final static int TUNE_MIN_BLOCKS = 5;
+    public final static double TUNE_ALPHA = 0.05;
+    public final static int TUNE_WORKERS = THREADS;
 
     public final static int POPULATION_SIZE = 400;
     public final static int GENERATIONS = 3000;
@@ -21,8 +52,44 @@ public class Parameters {
     public final static double MUTATION_PROB = 0.4;
     public final static double XOVER_PROB = 0.6;
     public final static double INSERT_BEST = 0.8;
+    // Insertions only try positions next to the k nearest neighbours of a customer, 0 tries every position
+    public final static int GRANULAR_NEIGHBOURS = 0;
+    // Share of offspring improved by local search (2-opt, Or-opt, relocate, exchange), 0 turns education off,
+    // and the time in milliseconds the search may spend on one offspring
+    public final static double EDUCATION_RATE = 0.0;
+    public final static double EDUCATION_TIME = 5;
+    // Cut each depot's customer sequence into routes optimally (Split) instead of filling vehicles in turn, for
+    // the initial population and for the depots changed by crossover
+    public final static boolean SPLIT_INITIAL = false;
+    public final static boolean SPLIT_CROSSOVER = false;
+    // Times an offspring identical to an earlier member of the population is mutated again to make it differ,
+    // 0 keeps duplicates
+    public final static int DUPLICATE_MUTATIONS = 0;
+    // Replace individuals one offspring pair at a time instead of rebuilding the population every generation,
+    // and the number of randomly drawn individuals of which an offspring replaces the most similar, 0 for the worst
+    public final static boolean STEADY_STATE = false;
+    public final static int REPLACEMENT_WINDOW = 0;
+    // Generations without a fitter individual in the population after which the run restarts the population
+    // around its elite, or stops if restarts are off; 0 never gives up
+    public final static int STAGNATION_GENERATIONS = 0;
+    public final static boolean STAGNATION_RESTART = true;
+    // Slots in the table of known solution fitnesses by route hash, 0 evaluates every changed offspring. Off by
+    // default: evaluation only sums the cached route costs, and a hit leaves depots stale that copies cannot share
+    public final static int FITNESS_MEMO_SIZE = 0;
+    // Distance storage: "auto" picks by instance size, or "matrix", "triangular", "triangular-float", "mapped", "computed"
+    public final static String DISTANCE_STORE = "auto";
     public final static double SWAP_BOUND = 0.5;
 
+    // Per generation phase timings, operator success counts, fitness spread and diversity, written per run as
+    // "csv" or "jsonl" to the metrics folder; false records nothing
+    public final static boolean METRICS = false;
+    public final static String METRICS_FORMAT = "csv";
+    public final static String METRICS_FOLDER = "./data/Metrics/";
+    // Chromosomes compared pairwise for the diversity measure
+    public final static int METRICS_DIVERSITY_SAMPLE = 16;
+    // One in this many crossovers and mutations is recorded as a JFR operator event while recording
+    public final static int JFR_OPERATOR_SAMPLE = 64;
+
     public final static double PENALTY_DEMAND = 10;
     public final static double PENALTY_LENGTH = 15;
 
@@ -2,66 +2,85 @@ package Utilities;
 
 import Models.MDVRP;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.*;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class ProblemInit {
     public static MDVRP initializeProblem(String filenumber) {
-        String filename = Parameters.PROBLEM_FOLDER + filenumber;
-        ArrayList<String> fileContent = new ArrayList<>();
+        Path file = Paths.get(Parameters.PROBLEM_FOLDER + filenumber);
 
-        // Read the problem file line for line
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            while (br.ready()) {
-                fileContent.add(br.readLine().trim());
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (Parameters.INSTANCE_CACHE) {
+            return InstanceCache.load(file, Paths.get(Parameters.INSTANCE_CACHE_FOLDER));
         }
+        return initializeProblem(file);
+    }
 
-        // Get problem meta data
-        String problemInfo = fileContent.get(0);
-        // Split line on whitespace
-        String[] problemInfoSplit = problemInfo.split("\\s+");
-        int maxVehicles = Integer.parseInt(problemInfoSplit[0]);
-        int numCustomers = Integer.parseInt(problemInfoSplit[1]);
-        int numDepots = Integer.parseInt(problemInfoSplit[2]);
-
-        List<String> maxLoadLine = Arrays.asList(fileContent.get(1).split("\\s+"));
-        double maxLength = Double.parseDouble(maxLoadLine.get(0));
-        Double maxLoad = Double.parseDouble(maxLoadLine.get(1));
-
-
-        Map<Integer, ArrayList<Double>> depots = new HashMap<>();
-
-        // Iterate depots and extract data
-        for(int depot = 1; depot < numDepots + 1; depot++) {
-            List<String> depotEntry = Arrays.asList(fileContent.get(depot + numCustomers + numDepots).split("\\s+"));
-
-            Double xDepot = Double.parseDouble(depotEntry.get(1));
-            Double yDepot = Double.parseDouble(depotEntry.get(2));
+    /**
+     * Parses a problem file straight from a memory mapping of it.
+     */
+    public static MDVRP initializeProblem(Path file) {
+        MappedByteBuffer buffer;
 
-            ArrayList<Double> depotLoc = new ArrayList<>(Arrays.asList(xDepot, yDepot, maxLoad));
-            depots.put(depot - 1, depotLoc);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read problem file " + file, e);
         }
 
-        // Iterate customers and extract data
-        Map<Integer, ArrayList<Double>> customers = new HashMap<>();
-        for(int customer = 1 + numDepots; customer < numCustomers + numDepots + 1; customer++) {
-            List<String> customerEntry = Arrays.asList(fileContent.get(customer).split("\\s+"));
+        return parse(buffer);
+    }
 
-            Double xCustomer = Double.parseDouble(customerEntry.get(1));
-            Double yCustomer = Double.parseDouble(customerEntry.get(2));
-            Double demand = Double.parseDouble(customerEntry.get(4));
+    /**
+     * Parses the contents of a problem file into coordinate, demand and depot limit arrays. Depots come first in
+     * the coordinate arrays, then customers, matching the node numbering of MDVRP.
+     */
+    public static MDVRP parse(ByteBuffer buffer) {
+        NumberTokenizer tokenizer = new NumberTokenizer(buffer);
 
-            ArrayList<Double> customerLoc = new ArrayList<>(Arrays.asList(xCustomer, yCustomer, demand));
-            customers.put(customer - numDepots - 1, customerLoc);
+        // Get problem meta data
+        int maxVehicles = tokenizer.nextInt();
+        int numCustomers = tokenizer.nextInt();
+        int numDepots = tokenizer.nextInt();
+        tokenizer.skipLine();
+
+        // Maximum route duration and vehicle load, one line per depot
+        double[] maxLengths = new double[numDepots];
+        double[] maxLoads = new double[numDepots];
+
+        for (int depot = 0; depot < numDepots; depot++) {
+            maxLengths[depot] = tokenizer.nextDouble();
+            maxLoads[depot] = tokenizer.nextDouble();
+            tokenizer.skipLine();
         }
 
-        return new MDVRP(depots, customers, numDepots, numCustomers, maxVehicles, maxLoad, maxLength);
+        double[] x = new double[numDepots + numCustomers];
+        double[] y = new double[numDepots + numCustomers];
+        double[] demands = new double[numCustomers];
+
+        // Customers: id, x, y, service duration, demand, then visit patterns that are not used
+        for (int customer = 0; customer < numCustomers; customer++) {
+            tokenizer.nextInt();
+            x[customer + numDepots] = tokenizer.nextDouble();
+            y[customer + numDepots] = tokenizer.nextDouble();
+            tokenizer.nextDouble();
+            demands[customer] = tokenizer.nextDouble();
+            tokenizer.skipLine();
+        }
 
+        // Depots: id, x, y, then fields that are not used
+        for (int depot = 0; depot < numDepots; depot++) {
+            tokenizer.nextInt();
+            x[depot] = tokenizer.nextDouble();
+            y[depot] = tokenizer.nextDouble();
+            tokenizer.skipLine();
+        }
 
+        return new MDVRP(x, y, demands, maxLoads, maxLengths, numDepots, maxVehicles);
     }
 }
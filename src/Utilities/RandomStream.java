@@ -0,0 +1,77 @@
+package Utilities;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A java.util.Random drawing from a SplittableRandom, so that the operators can keep taking a Random while a
+ * run's randomness forms a tree of independent streams grown from its one seed. Split off a stream for each
+ * unit of parallel work, in a fixed order, and the outcome does not depend on the number of threads.
+ *
+ * A stream is meant for one thread at a time: unlike Random it does no atomic update per draw.
+ */
+public class RandomStream extends Random {
+
+    private final SplittableRandom source;
+
+    public RandomStream(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private RandomStream(SplittableRandom source) {
+        super(0);
+        this.source = source;
+    }
+
+    /**
+     * A seed for a run that was given none.
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * A new stream, independent of this one from here on. Advances this stream.
+     */
+    public RandomStream split() {
+        return new RandomStream(this.source.split());
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // Called by the Random constructor, before there is a source to reseed
+        if (this.source != null) {
+            throw new UnsupportedOperationException("RandomStream cannot be reseeded");
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (this.source.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return this.source.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return this.source.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return this.source.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return this.source.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return this.source.nextBoolean();
+    }
+}
@@ -0,0 +1,630 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The tuning knobs of one solver run. Defaults come from Parameters, and any of them can be overridden
+ * from a properties file or the command line without recompiling. Instances are immutable; the problem and
+ * the GA read their settings from the configuration they were given.
+ *
+ * Keys are the Parameters names, case insensitive and with '-', '.' or '_' between words, so
+ * "MUTATION_PROB", "mutation-prob" and "mutation.prob" are the same key.
+ */
+public final class SolverConfig {
+
+    private static final SolverConfig DEFAULTS = new Builder().build();
+
+    private final Long seed;
+    private final int threads;
+    private final int populationSize;
+    private final int generations;
+    private final double maxTime;
+    private final double fitnessTarget;
+    private final int elitism;
+    private final double keepBest;
+    private final double mutationProb;
+    private final double xoverProb;
+    private final double insertBest;
+    private final double swapBound;
+    private final double penaltyDemand;
+    private final double penaltyLength;
+    private final int granularNeighbours;
+    private final double educationRate;
+    private final double educationTime;
+    private final boolean splitInitial;
+    private final boolean splitCrossover;
+    private final int duplicateMutations;
+    private final boolean steadyState;
+    private final int replacementWindow;
+    private final int stagnationGenerations;
+    private final boolean stagnationRestart;
+    private final int fitnessMemoSize;
+
+    private SolverConfig(Builder builder) {
+        this.seed = builder.seed;
+        this.threads = builder.threads;
+        this.populationSize = builder.populationSize;
+        this.generations = builder.generations;
+        this.maxTime = builder.maxTime;
+        this.fitnessTarget = builder.fitnessTarget;
+        this.elitism = builder.elitism;
+        this.keepBest = builder.keepBest;
+        this.mutationProb = builder.mutationProb;
+        this.xoverProb = builder.xoverProb;
+        this.insertBest = builder.insertBest;
+        this.swapBound = builder.swapBound;
+        this.penaltyDemand = builder.penaltyDemand;
+        this.penaltyLength = builder.penaltyLength;
+        this.granularNeighbours = builder.granularNeighbours;
+        this.educationRate = builder.educationRate;
+        this.educationTime = builder.educationTime;
+        this.splitInitial = builder.splitInitial;
+        this.splitCrossover = builder.splitCrossover;
+        this.duplicateMutations = builder.duplicateMutations;
+        this.steadyState = builder.steadyState;
+        this.replacementWindow = builder.replacementWindow;
+        this.stagnationGenerations = builder.stagnationGenerations;
+        this.stagnationRestart = builder.stagnationRestart;
+        this.fitnessMemoSize = builder.fitnessMemoSize;
+
+        check(this.threads >= 1, "threads must be at least 1");
+        check(this.populationSize >= 2, "population-size must be at least 2");
+        check(this.elitism >= 0 && this.elitism < this.populationSize, "elitism must be in [0, population-size)");
+        check(this.generations >= 0, "generations must not be negative");
+        check(this.maxTime > 0, "max-time must be positive");
+        check(isProbability(this.keepBest), "keep-best must be in [0, 1]");
+        check(isProbability(this.mutationProb), "mutation-prob must be in [0, 1]");
+        check(isProbability(this.xoverProb), "xover-prob must be in [0, 1]");
+        check(isProbability(this.insertBest), "insert-best must be in [0, 1]");
+        check(this.swapBound >= 0, "swap-bound must not be negative");
+        check(this.penaltyDemand >= 0 && this.penaltyLength >= 0, "penalties must not be negative");
+        check(this.granularNeighbours >= 0, "granular-neighbours must not be negative");
+        check(isProbability(this.educationRate), "education-rate must be in [0, 1]");
+        check(this.educationTime > 0, "education-time must be positive");
+        check(this.duplicateMutations >= 0, "duplicate-mutations must not be negative");
+        check(this.replacementWindow >= 0 && this.replacementWindow <= this.populationSize,
+                "replacement-window must be in [0, population-size]");
+        check(this.stagnationGenerations >= 0, "stagnation-generations must not be negative");
+        check(this.fitnessMemoSize >= 0, "fitness-memo-size must not be negative");
+    }
+
+    /**
+     * The configuration given by Parameters.
+     */
+    public static SolverConfig defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * The defaults with the given properties applied. A "config" property names a properties file that is
+     * applied first, so the remaining properties override it.
+     */
+    public static SolverConfig fromProperties(Properties properties) {
+        Properties remaining = (Properties) properties.clone();
+        Builder builder = new Builder();
+        String file = (String) remaining.remove("config");
+
+        if (file != null) {
+            builder.setAll(load(Paths.get(file)));
+        }
+
+        return builder.setAll(remaining).build();
+    }
+
+    /**
+     * Reads "key=value" and "--key=value" arguments into properties, ready for fromProperties once any
+     * arguments meant for someone else have been removed.
+     */
+    public static Properties parseArguments(String[] args) {
+        Properties properties = new Properties();
+
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int split = option.indexOf('=');
+
+            if (split <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+
+            properties.setProperty(option.substring(0, split).trim(), option.substring(split + 1).trim());
+        }
+
+        return properties;
+    }
+
+    public static Properties load(Path file) {
+        Properties properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read configuration " + file, e);
+        }
+
+        return properties;
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * A copy with one setting changed, given by key and value as in a properties file.
+     */
+    public SolverConfig with(String key, String value) {
+        return toBuilder().set(key, value).build();
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Time limit of a run in seconds.
+     */
+    public double getMaxTime() {
+        return maxTime;
+    }
+
+    public double getFitnessTarget() {
+        return fitnessTarget;
+    }
+
+    public int getElitism() {
+        return elitism;
+    }
+
+    public double getKeepBest() {
+        return keepBest;
+    }
+
+    public double getMutationProb() {
+        return mutationProb;
+    }
+
+    public double getXoverProb() {
+        return xoverProb;
+    }
+
+    public double getInsertBest() {
+        return insertBest;
+    }
+
+    public double getSwapBound() {
+        return swapBound;
+    }
+
+    public double getPenaltyDemand() {
+        return penaltyDemand;
+    }
+
+    public double getPenaltyLength() {
+        return penaltyLength;
+    }
+
+    public int getGranularNeighbours() {
+        return granularNeighbours;
+    }
+
+    /**
+     * Probability that an offspring is improved by local search, 0 leaves the GA without education.
+     */
+    public double getEducationRate() {
+        return educationRate;
+    }
+
+    /**
+     * Time limit of the local search on one offspring in milliseconds.
+     */
+    public double getEducationTime() {
+        return educationTime;
+    }
+
+    /**
+     * Whether the initial routes are cut from each depot's customers by Split rather than greedily.
+     */
+    public boolean isSplitInitial() {
+        return splitInitial;
+    }
+
+    /**
+     * Whether the depots changed by crossover have their routes re-cut by Split.
+     */
+    public boolean isSplitCrossover() {
+        return splitCrossover;
+    }
+
+    /**
+     * Times an offspring duplicating an earlier member of the population is mutated again, 0 keeps duplicates.
+     */
+    public int getDuplicateMutations() {
+        return duplicateMutations;
+    }
+
+    /**
+     * Whether offspring replace individuals of the population one pair at a time rather than a generation at once.
+     */
+    public boolean isSteadyState() {
+        return steadyState;
+    }
+
+    /**
+     * Number of individuals drawn at random of which a steady-state offspring replaces the most similar, 0 to
+     * replace the worst individual.
+     */
+    public int getReplacementWindow() {
+        return replacementWindow;
+    }
+
+    /**
+     * Generations without a fitter individual in the population before the run restarts or stops, 0 for never.
+     */
+    public int getStagnationGenerations() {
+        return stagnationGenerations;
+    }
+
+    /**
+     * Whether a stagnated run restarts its population around the elite rather than stopping.
+     */
+    public boolean isStagnationRestart() {
+        return stagnationRestart;
+    }
+
+    /**
+     * Slots in the table of known solution fitnesses by route hash, 0 to evaluate every changed offspring.
+     */
+    public int getFitnessMemoSize() {
+        return fitnessMemoSize;
+    }
+
+    /**
+     * The settings as properties, readable by fromProperties.
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+
+        properties.setProperty("seed", this.seed == null ? "random" : Long.toString(this.seed));
+        properties.setProperty("threads", Integer.toString(this.threads));
+        properties.setProperty("population-size", Integer.toString(this.populationSize));
+        properties.setProperty("generations", Integer.toString(this.generations));
+        properties.setProperty("max-time", Double.toString(this.maxTime));
+        properties.setProperty("fitness-target", Double.toString(this.fitnessTarget));
+        properties.setProperty("elitism", Integer.toString(this.elitism));
+        properties.setProperty("keep-best", Double.toString(this.keepBest));
+        properties.setProperty("mutation-prob", Double.toString(this.mutationProb));
+        properties.setProperty("xover-prob", Double.toString(this.xoverProb));
+        properties.setProperty("insert-best", Double.toString(this.insertBest));
+        properties.setProperty("swap-bound", Double.toString(this.swapBound));
+        properties.setProperty("penalty-demand", Double.toString(this.penaltyDemand));
+        properties.setProperty("penalty-length", Double.toString(this.penaltyLength));
+        properties.setProperty("granular-neighbours", Integer.toString(this.granularNeighbours));
+        properties.setProperty("education-rate", Double.toString(this.educationRate));
+        properties.setProperty("education-time", Double.toString(this.educationTime));
+        properties.setProperty("split-initial", Boolean.toString(this.splitInitial));
+        properties.setProperty("split-crossover", Boolean.toString(this.splitCrossover));
+        properties.setProperty("duplicate-mutations", Integer.toString(this.duplicateMutations));
+        properties.setProperty("steady-state", Boolean.toString(this.steadyState));
+        properties.setProperty("replacement-window", Integer.toString(this.replacementWindow));
+        properties.setProperty("stagnation-generations", Integer.toString(this.stagnationGenerations));
+        properties.setProperty("stagnation-restart", Boolean.toString(this.stagnationRestart));
+        properties.setProperty("fitness-memo-size", Integer.toString(this.fitnessMemoSize));
+
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "population-size=%d generations=%d max-time=%s elitism=%d keep-best=%s "
+                        + "mutation-prob=%s xover-prob=%s insert-best=%s swap-bound=%s penalty-demand=%s "
+                        + "penalty-length=%s granular-neighbours=%d education-rate=%s education-time=%s "
+                        + "split-initial=%b split-crossover=%b duplicate-mutations=%d steady-state=%b "
+                        + "replacement-window=%d stagnation-generations=%d stagnation-restart=%b "
+                        + "fitness-memo-size=%d",
+                this.populationSize, this.generations, this.maxTime, this.elitism, this.keepBest, this.mutationProb,
+                this.xoverProb, this.insertBest, this.swapBound, this.penaltyDemand, this.penaltyLength,
+                this.granularNeighbours, this.educationRate, this.educationTime,
+                this.splitInitial, this.splitCrossover, this.duplicateMutations, this.steadyState,
+                this.replacementWindow, this.stagnationGenerations, this.stagnationRestart, this.fitnessMemoSize);
+    }
+
+    // Boolean.parseBoolean reads any typo as false, so only true and false are accepted
+    private static boolean parseBoolean(String key, String value) {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static boolean isProbability(double p) {
+        return p >= 0 && p <= 1;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    public static class Builder {
+
+        private Long seed = Parameters.SEED;
+        private int threads = Parameters.THREADS;
+        private int populationSize = Parameters.POPULATION_SIZE;
+        private int generations = Parameters.GENERATIONS;
+        private double maxTime = Parameters.MAX_TIME;
+        private double fitnessTarget = Parameters.FITNESS_TARGET;
+        private int elitism = Parameters.ELITISM;
+        private double keepBest = Parameters.KEEP_BEST;
+        private double mutationProb = Parameters.MUTATION_PROB;
+        private double xoverProb = Parameters.XOVER_PROB;
+        private double insertBest = Parameters.INSERT_BEST;
+        private double swapBound = Parameters.SWAP_BOUND;
+        private double penaltyDemand = Parameters.PENALTY_DEMAND;
+        private double penaltyLength = Parameters.PENALTY_LENGTH;
+        private int granularNeighbours = Parameters.GRANULAR_NEIGHBOURS;
+        private double educationRate = Parameters.EDUCATION_RATE;
+        private double educationTime = Parameters.EDUCATION_TIME;
+        private boolean splitInitial = Parameters.SPLIT_INITIAL;
+        private boolean splitCrossover = Parameters.SPLIT_CROSSOVER;
+        private int duplicateMutations = Parameters.DUPLICATE_MUTATIONS;
+        private boolean steadyState = Parameters.STEADY_STATE;
+        private int replacementWindow = Parameters.REPLACEMENT_WINDOW;
+        private int stagnationGenerations = Parameters.STAGNATION_GENERATIONS;
+        private boolean stagnationRestart = Parameters.STAGNATION_RESTART;
+        private int fitnessMemoSize = Parameters.FITNESS_MEMO_SIZE;
+
+        public Builder() {
+        }
+
+        private Builder(SolverConfig config) {
+            this.seed = config.seed;
+            this.threads = config.threads;
+            this.populationSize = config.populationSize;
+            this.generations = config.generations;
+            this.maxTime = config.maxTime;
+            this.fitnessTarget = config.fitnessTarget;
+            this.elitism = config.elitism;
+            this.keepBest = config.keepBest;
+            this.mutationProb = config.mutationProb;
+            this.xoverProb = config.xoverProb;
+            this.insertBest = config.insertBest;
+            this.swapBound = config.swapBound;
+            this.penaltyDemand = config.penaltyDemand;
+            this.penaltyLength = config.penaltyLength;
+            this.granularNeighbours = config.granularNeighbours;
+            this.educationRate = config.educationRate;
+            this.educationTime = config.educationTime;
+            this.splitInitial = config.splitInitial;
+            this.splitCrossover = config.splitCrossover;
+            this.duplicateMutations = config.duplicateMutations;
+            this.steadyState = config.steadyState;
+            this.replacementWindow = config.replacementWindow;
+            this.stagnationGenerations = config.stagnationGenerations;
+            this.stagnationRestart = config.stagnationRestart;
+            this.fitnessMemoSize = config.fitnessMemoSize;
+        }
+
+        public Builder seed(Long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder populationSize(int populationSize) {
+            this.populationSize = populationSize;
+            return this;
+        }
+
+        public Builder generations(int generations) {
+            this.generations = generations;
+            return this;
+        }
+
+        public Builder maxTime(double maxTime) {
+            this.maxTime = maxTime;
+            return this;
+        }
+
+        public Builder fitnessTarget(double fitnessTarget) {
+            this.fitnessTarget = fitnessTarget;
+            return this;
+        }
+
+        public Builder elitism(int elitism) {
+            this.elitism = elitism;
+            return this;
+        }
+
+        public Builder keepBest(double keepBest) {
+            this.keepBest = keepBest;
+            return this;
+        }
+
+        public Builder mutationProb(double mutationProb) {
+            this.mutationProb = mutationProb;
+            return this;
+        }
+
+        public Builder xoverProb(double xoverProb) {
+            this.xoverProb = xoverProb;
+            return this;
+        }
+
+        public Builder insertBest(double insertBest) {
+            this.insertBest = insertBest;
+            return this;
+        }
+
+        public Builder swapBound(double swapBound) {
+            this.swapBound = swapBound;
+            return this;
+        }
+
+        public Builder penaltyDemand(double penaltyDemand) {
+            this.penaltyDemand = penaltyDemand;
+            return this;
+        }
+
+        public Builder penaltyLength(double penaltyLength) {
+            this.penaltyLength = penaltyLength;
+            return this;
+        }
+
+        public Builder granularNeighbours(int granularNeighbours) {
+            this.granularNeighbours = granularNeighbours;
+            return this;
+        }
+
+        public Builder educationRate(double educationRate) {
+            this.educationRate = educationRate;
+            return this;
+        }
+
+        public Builder educationTime(double educationTime) {
+            this.educationTime = educationTime;
+            return this;
+        }
+
+        public Builder splitInitial(boolean splitInitial) {
+            this.splitInitial = splitInitial;
+            return this;
+        }
+
+        public Builder splitCrossover(boolean splitCrossover) {
+            this.splitCrossover = splitCrossover;
+            return this;
+        }
+
+        public Builder duplicateMutations(int duplicateMutations) {
+            this.duplicateMutations = duplicateMutations;
+            return this;
+        }
+
+        public Builder steadyState(boolean steadyState) {
+            this.steadyState = steadyState;
+            return this;
+        }
+
+        public Builder replacementWindow(int replacementWindow) {
+            this.replacementWindow = replacementWindow;
+            return this;
+        }
+
+        public Builder stagnationGenerations(int stagnationGenerations) {
+            this.stagnationGenerations = stagnationGenerations;
+            return this;
+        }
+
+        public Builder stagnationRestart(boolean stagnationRestart) {
+            this.stagnationRestart = stagnationRestart;
+            return this;
+        }
+
+        public Builder fitnessMemoSize(int fitnessMemoSize) {
+            this.fitnessMemoSize = fitnessMemoSize;
+            return this;
+        }
+
+        /**
+         * Sets one setting from its key and textual value, as found in a properties file.
+         */
+        public Builder set(String key, String value) {
+            String name = key.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace('.', '_');
+            value = value.trim();
+
+            try {
+                switch (name) {
+                    case "SEED":
+                        return seed(value.isEmpty() || "random".equalsIgnoreCase(value) ? null : Long.valueOf(value));
+                    case "THREADS":
+                        return threads(Integer.parseInt(value));
+                    case "POPULATION_SIZE":
+                        return populationSize(Integer.parseInt(value));
+                    case "GENERATIONS":
+                        return generations(Integer.parseInt(value));
+                    case "MAX_TIME":
+                        return maxTime(Double.parseDouble(value));
+                    case "FITNESS_TARGET":
+                        return fitnessTarget(Double.parseDouble(value));
+                    case "ELITISM":
+                        return elitism(Integer.parseInt(value));
+                    case "KEEP_BEST":
+                        return keepBest(Double.parseDouble(value));
+                    case "MUTATION_PROB":
+                        return mutationProb(Double.parseDouble(value));
+                    case "XOVER_PROB":
+                        return xoverProb(Double.parseDouble(value));
+                    case "INSERT_BEST":
+                        return insertBest(Double.parseDouble(value));
+                    case "SWAP_BOUND":
+                        return swapBound(Double.parseDouble(value));
+                    case "PENALTY_DEMAND":
+                        return penaltyDemand(Double.parseDouble(value));
+                    case "PENALTY_LENGTH":
+                        return penaltyLength(Double.parseDouble(value));
+                    case "GRANULAR_NEIGHBOURS":
+                        return granularNeighbours(Integer.parseInt(value));
+                    case "EDUCATION_RATE":
+                        return educationRate(Double.parseDouble(value));
+                    case "EDUCATION_TIME":
+                        return educationTime(Double.parseDouble(value));
+                    case "SPLIT_INITIAL":
+                        return splitInitial(parseBoolean(key, value));
+                    case "SPLIT_CROSSOVER":
+                        return splitCrossover(parseBoolean(key, value));
+                    case "DUPLICATE_MUTATIONS":
+                        return duplicateMutations(Integer.parseInt(value));
+                    case "STEADY_STATE":
+                        return steadyState(parseBoolean(key, value));
+                    case "REPLACEMENT_WINDOW":
+                        return replacementWindow(Integer.parseInt(value));
+                    case "STAGNATION_GENERATIONS":
+                        return stagnationGenerations(Integer.parseInt(value));
+                    case "STAGNATION_RESTART":
+                        return stagnationRestart(parseBoolean(key, value));
+                    case "FITNESS_MEMO_SIZE":
+                        return fitnessMemoSize(Integer.parseInt(value));
+                    default:
+                        throw new IllegalArgumentException("Unknown setting " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+            }
+        }
+
+        public Builder setAll(Properties properties) {
+            for (String key : properties.stringPropertyNames()) {
+                set(key, properties.getProperty(key));
+            }
+
+            return this;
+        }
+
+        public SolverConfig build() {
+            return new SolverConfig(this);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package Utilities;
 
 import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import static java.lang.Math.sqrt;
 import static java.lang.Math.pow;
@@ -19,10 +23,24 @@ public class Utils {
     }
 
     public static void writeSolution(String solution, String filename) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(Parameters.SOLUTIONS_FOLDER + filename + ".res"));
-
-        writer.write(solution);
+        writeAtomically(Paths.get(Parameters.SOLUTIONS_FOLDER, filename + ".res"), solution);
+    }
 
-        writer.close();
+    /**
+     * Writes the content to a temporary file next to the target and renames it into place, so readers and
+     * crashes never see a partially written file.
+     */
+    public static void writeAtomically(Path file, String content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.write(content);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 }
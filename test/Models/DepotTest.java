@@ -0,0 +1,129 @@
+package Models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Split against a brute force search over every way to cut the giant tour of a small depot into routes.
+ */
+class DepotTest {
+
+    private static final int TRIALS = 300;
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void splitMatchesBruteForce() {
+        Random random = new Random(6);
+        int feasible = 0;
+        int infeasible = 0;
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 16, 3);
+            Chromosome chromosome = TestProblems.solution(problem, random);
+
+            for (int d = 0; d < problem.getNumDepots(); d++) {
+                Depot depot = chromosome.getDepot(d);
+                int[] tour = depot.getTour();
+                double expected = bruteForce(depot, tour, problem, false);
+
+                boolean split = depot.splitRoutes(tour, problem);
+
+                assertEquals(expected < Double.POSITIVE_INFINITY, split);
+                assertArrayEquals(tour, depot.getTour());
+
+                if (split) {
+                    assertEquals(expected, depot.getFitness(problem), TOLERANCE);
+                    assertTrue(depot.isFeasible(problem));
+                    feasible++;
+                } else {
+                    infeasible++;
+                }
+            }
+        }
+
+        // Both outcomes must have been tried for the test to mean anything
+        assertTrue(feasible > 0 && infeasible > 0);
+    }
+
+    @Test
+    void penalisedSplitMatchesBruteForce() {
+        Random random = new Random(7);
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 16, 3);
+            Chromosome chromosome = TestProblems.solution(problem, random);
+
+            for (int d = 0; d < problem.getNumDepots(); d++) {
+                Depot depot = chromosome.getDepot(d);
+                int[] tour = depot.getTour();
+                double expected = bruteForce(depot, tour, problem, true);
+
+                depot.splitRoutesPenalised(tour, problem);
+
+                assertArrayEquals(tour, depot.getTour());
+                assertEquals(expected, depot.getFitness(problem), TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * Least total length of the tour cut into at most maxVehicles routes within the limits, infinite if there is
+     * no such cut, or with penalised set the least total penalised fitness of any cut.
+     */
+    private static double bruteForce(Depot depot, int[] tour, MDVRP problem, boolean penalised) {
+        int n = tour.length;
+
+        if (n == 0) {
+            return 0.0;
+        }
+
+        Vehicle vehicle = depot.getVehicle(0);
+        double maxLoad = problem.getMaxLoad(depot.getId());
+        double maxLength = problem.getMaxLength(depot.getId());
+        double best = Double.POSITIVE_INFINITY;
+
+        // Bit k of cuts ends a route after position k of the tour
+        for (int cuts = 0; cuts < 1 << (n - 1); cuts++) {
+            if (Integer.bitCount(cuts) + 1 > problem.getMaxVehicles()) {
+                continue;
+            }
+
+            double total = 0.0;
+            int start = 0;
+
+            for (int end = 1; end <= n && total < Double.POSITIVE_INFINITY; end++) {
+                if (end < n && (cuts & 1 << (end - 1)) == 0) {
+                    continue;
+                }
+
+                double length = problem.getD2CDistance(depot.getId(), tour[start])
+                        + problem.getD2CDistance(depot.getId(), tour[end - 1]);
+                double load = problem.getDemand(tour[start]);
+
+                for (int k = start + 1; k < end; k++) {
+                    length += problem.getC2CDistance(tour[k - 1], tour[k]);
+                    load += problem.getDemand(tour[k]);
+                }
+
+                if (penalised) {
+                    total += vehicle.fitnessOf(length, load, problem);
+                } else if (load <= maxLoad && (maxLength == 0 || length <= maxLength)) {
+                    total += length;
+                } else {
+                    total = Double.POSITIVE_INFINITY;
+                }
+
+                start = end;
+            }
+
+            best = Math.min(best, total);
+        }
+
+        return best;
+    }
+}
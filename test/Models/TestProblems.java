@@ -0,0 +1,56 @@
+package Models;
+
+import java.util.Random;
+
+/**
+ * Small random instances for the unit tests.
+ */
+final class TestProblems {
+
+    private TestProblems() {
+    }
+
+    /**
+     * Customers scattered over a 100 by 100 square and depots evenly spread across its middle, so every depot
+     * is the closest of some customers. Loads and route lengths are tight enough that routes often run into
+     * the limits; about half the depots have no length limit.
+     */
+    static MDVRP random(Random random, int numDepots, int numCustomers, int maxVehicles) {
+        double[] x = new double[numDepots + numCustomers];
+        double[] y = new double[numDepots + numCustomers];
+        double[] demands = new double[numCustomers];
+        double[] maxLoads = new double[numDepots];
+        double[] maxLengths = new double[numDepots];
+
+        for (int depot = 0; depot < numDepots; depot++) {
+            x[depot] = 100 * (depot + 0.5) / numDepots;
+            y[depot] = 50;
+        }
+
+        for (int node = numDepots; node < x.length; node++) {
+            x[node] = 100 * random.nextDouble();
+            y[node] = 100 * random.nextDouble();
+        }
+
+        for (int customer = 0; customer < numCustomers; customer++) {
+            demands[customer] = 1 + random.nextInt(25);
+        }
+
+        for (int depot = 0; depot < numDepots; depot++) {
+            maxLoads[depot] = 40 + random.nextInt(40);
+            maxLengths[depot] = random.nextBoolean() ? 0 : 150 + 150 * random.nextDouble();
+        }
+
+        return new MDVRP(x, y, demands, maxLoads, maxLengths, numDepots, maxVehicles);
+    }
+
+    /**
+     * A random solution of the problem, scheduled as for the initial population.
+     */
+    static Chromosome solution(MDVRP problem, Random random) {
+        Chromosome chromosome = new Chromosome(problem, random);
+        chromosome.scheduleRoutes(problem);
+
+        return chromosome;
+    }
+}
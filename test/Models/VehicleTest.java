@@ -0,0 +1,140 @@
+package Models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Each move delta of Vehicle against the change in route cost, recomputed from scratch, when the move is made
+ * on random routes.
+ */
+class VehicleTest {
+
+    private static final int TRIALS = 500;
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void insertionDeltaMatchesInsertion() {
+        Random random = new Random(1);
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 24, 4);
+            Chromosome chromosome = TestProblems.solution(problem, random);
+            Vehicle vehicle = randomVehicle(chromosome, random, 0, null);
+            Vehicle donor = randomVehicle(chromosome, random, 1, vehicle);
+
+            int c = donor.removeCustomerByIndex(random.nextInt(donor.getNumCustomers()));
+            int i = random.nextInt(vehicle.getNumCustomers() + 1);
+            double before = vehicle.getRouteCost(problem);
+            double delta = vehicle.insertionDelta(c, i, problem);
+
+            vehicle.insertCustomerByIndex(i, c);
+
+            assertEquals(vehicle.getRouteCost(problem) - before, delta, TOLERANCE);
+        }
+    }
+
+    @Test
+    void removalDeltaMatchesRemoval() {
+        Random random = new Random(2);
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 24, 4);
+            Vehicle vehicle = randomVehicle(TestProblems.solution(problem, random), random, 1, null);
+
+            int i = random.nextInt(vehicle.getNumCustomers());
+            double before = vehicle.getRouteCost(problem);
+            double delta = vehicle.removalDelta(i, problem);
+
+            vehicle.removeCustomerByIndex(i);
+
+            assertEquals(vehicle.getRouteCost(problem) - before, delta, TOLERANCE);
+        }
+    }
+
+    @Test
+    void replacementDeltaMatchesReplacement() {
+        Random random = new Random(3);
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 24, 4);
+            Chromosome chromosome = TestProblems.solution(problem, random);
+            Vehicle vehicle = randomVehicle(chromosome, random, 1, null);
+            Vehicle donor = randomVehicle(chromosome, random, 1, vehicle);
+
+            int c = donor.removeCustomerByIndex(random.nextInt(donor.getNumCustomers()));
+            int i = random.nextInt(vehicle.getNumCustomers());
+            double before = vehicle.getRouteCost(problem);
+            double delta = vehicle.replacementDelta(i, c, problem);
+
+            donor.insertCustomerByIndex(0, vehicle.setCustomerByIndex(i, c));
+
+            assertEquals(vehicle.getRouteCost(problem) - before, delta, TOLERANCE);
+        }
+    }
+
+    @Test
+    void segmentMoveDeltaMatchesMove() {
+        Random random = new Random(4);
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 24, 4);
+            Vehicle vehicle = randomVehicle(TestProblems.solution(problem, random), random, 2, null);
+
+            int n = vehicle.getNumCustomers();
+            int length = 1 + random.nextInt(Math.min(3, n - 1));
+            int from = random.nextInt(n - length + 1);
+            // Any gap but the length + 1 ones at or inside the segment
+            int gap = random.nextInt(n - length);
+            if (gap >= from) {
+                gap += length + 1;
+            }
+            boolean reversed = random.nextBoolean();
+
+            double before = vehicle.getRouteCost(problem);
+            double delta = vehicle.segmentMoveDelta(from, length, gap, reversed, problem);
+
+            vehicle.moveSegment(from, length, gap, reversed);
+
+            assertEquals(vehicle.getRouteCost(problem) - before, delta, TOLERANCE);
+        }
+    }
+
+    @Test
+    void reversalDeltaMatchesReversal() {
+        Random random = new Random(5);
+
+        for (int t = 0; t < TRIALS; t++) {
+            MDVRP problem = TestProblems.random(random, 2, 24, 4);
+            Vehicle vehicle = randomVehicle(TestProblems.solution(problem, random), random, 1, null);
+
+            int k1 = random.nextInt(vehicle.getNumCustomers() + 1);
+            int k2 = random.nextInt(vehicle.getNumCustomers() + 1);
+            double before = vehicle.getRouteCost(problem);
+            double delta = vehicle.reversalDelta(Math.min(k1, k2), Math.max(k1, k2), problem);
+
+            vehicle.reverseSegment(Math.min(k1, k2), Math.max(k1, k2));
+
+            assertEquals(vehicle.getRouteCost(problem) - before, delta, TOLERANCE);
+        }
+    }
+
+    // A vehicle of the chromosome, other than except, with at least the given number of customers
+    private static Vehicle randomVehicle(Chromosome chromosome, Random random, int minCustomers, Vehicle except) {
+        List<Vehicle> candidates = new ArrayList<>();
+
+        for (int d = 0; d < chromosome.getDepots().size(); d++) {
+            for (Vehicle vehicle : chromosome.getDepot(d).getVehicles()) {
+                if (vehicle != except && vehicle.getNumCustomers() >= minCustomers) {
+                    candidates.add(vehicle);
+                }
+            }
+        }
+
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+}